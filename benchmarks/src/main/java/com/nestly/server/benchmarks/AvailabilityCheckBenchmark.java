@@ -0,0 +1,91 @@
+package com.nestly.server.benchmarks;
+
+import com.nestly.server.models.Booking;
+import com.nestly.server.services.BookingService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// BookingService.isRoomAvailable against the real schema (Flyway migrations on embedded
+// H2) as the room's booking history grows. legacyInMemoryScan is the previous approach:
+// load every confirmed booking of the room and test overlap in Java.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AvailabilityCheckBenchmark {
+
+    private static final long ROOM_ID = 1;
+    private static final int OTHER_ROOMS = 10;
+    private static final LocalDate FIRST_STAY = LocalDate.of(2020, 1, 1);
+
+    @Param({ "10", "1000", "100000" })
+    public int bookingsPerRoom;
+
+    private ConfigurableApplicationContext context;
+    private BookingService bookingService;
+    private LocalDate checkIn;
+    private LocalDate checkOut;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = EmbeddedApp.start("availability" + bookingsPerRoom);
+        bookingService = context.getBean(BookingService.class);
+        seed(context.getBean(JdbcTemplate.class));
+
+        // A free window right after the room's last stay: the old scan has to look at everything
+        checkIn = FIRST_STAY.plusDays(3L * bookingsPerRoom);
+        checkOut = checkIn.plusDays(2);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    // Back-to-back 2-night stays on the measured room, the same volume spread over other rooms
+    private void seed(JdbcTemplate jdbc) {
+        jdbc.update("insert into users (id, email, enabled, password, role, username) "
+                + "values (1, 'guest@nestly.com', true, 'x', 'USER', 'guest')");
+        for (long roomId = ROOM_ID; roomId <= ROOM_ID + OTHER_ROOMS; roomId++) {
+            jdbc.update("insert into rooms (id, name, type, price, featured, available, city) "
+                    + "values (?, ?, 'Standard', 100, false, true, 'Lisbon')", roomId, "Room " + roomId);
+        }
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < bookingsPerRoom * 2; i++) {
+            long roomId = i < bookingsPerRoom ? ROOM_ID : ROOM_ID + 1 + i % OTHER_ROOMS;
+            LocalDate in = FIRST_STAY.plusDays(3L * (i % bookingsPerRoom));
+            rows.add(new Object[] { roomId, Date.valueOf(in), Date.valueOf(in.plusDays(2)) });
+            if (rows.size() == 5000) {
+                insertBookings(jdbc, rows);
+            }
+        }
+        insertBookings(jdbc, rows);
+    }
+
+    private static void insertBookings(JdbcTemplate jdbc, List<Object[]> rows) {
+        jdbc.batchUpdate("insert into bookings (room_id, user_id, check_in_date, check_out_date, guests, status, "
+                + "refund_status, amount) values (?, 1, ?, ?, 2, 'CONFIRMED', 'PENDING', 200)", rows);
+        rows.clear();
+    }
+
+    @Benchmark
+    public boolean isRoomAvailable() {
+        return bookingService.isRoomAvailable(ROOM_ID, checkIn, checkOut);
+    }
+
+    @Benchmark
+    public boolean legacyInMemoryScan() {
+        List<Booking> existing = bookingService.getBookingsByRoom(ROOM_ID);
+        return existing.stream()
+                .noneMatch(b -> checkIn.isBefore(b.getCheckOutDate()) && checkOut.isAfter(b.getCheckInDate()));
+    }
+}
@@ -0,0 +1,48 @@
+package com.nestly.server.benchmarks;
+
+import com.nestly.server.ServerApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Boots the real application on an embedded H2 database (MySQL mode, schema from the
+// Flyway migrations) with background jobs and SQL logging switched off.
+final class EmbeddedApp {
+
+    private EmbeddedApp() {
+    }
+
+    // ✅ Later properties win, so callers can override any default here
+    static ConfigurableApplicationContext start(String database, String... extraProperties) {
+        List<String> properties = new ArrayList<>(List.of(
+                "spring.datasource.url=jdbc:h2:mem:" + database
+                        + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                "spring.datasource.username=sa",
+                "spring.datasource.password=",
+                "spring.datasource.driver-class-name=org.h2.Driver",
+                "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "spring.jpa.hibernate.ddl-auto=none",
+                "spring.jpa.show-sql=false",
+                "server.port=0",
+                "jwt.secret=" + Fixtures.JWT_SECRET,
+                "paypal.client.id=benchmark",
+                "paypal.client.secret=benchmark",
+                "paypal.webhook.verify-signatures=false",
+                "frontend.url=http://localhost",
+                "spring.web.cors.allowed-origins=http://localhost",
+                "refund-reconciliation.enabled=false",
+                "booking-archival.enabled=false",
+                "paypal.webhook.poll-interval-ms=3600000",
+                "access-log.enabled=false",
+                "logging.level.root=WARN",
+                "logging.level.com.nestly.server=WARN",
+                "logging.level.org.hibernate.SQL=WARN",
+                "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN"));
+        properties.addAll(List.of(extraProperties));
+        return new SpringApplicationBuilder(ServerApplication.class)
+                .properties(properties.toArray(new String[0]))
+                .run();
+    }
+}
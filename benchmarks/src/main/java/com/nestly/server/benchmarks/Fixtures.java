@@ -0,0 +1,117 @@
+package com.nestly.server.benchmarks;
+
+import com.nestly.server.config.JwtUtil;
+import com.nestly.server.models.Booking;
+import com.nestly.server.models.Role;
+import com.nestly.server.models.Room;
+import com.nestly.server.models.User;
+import com.nestly.server.repositories.UserRepository;
+import com.nestly.server.services.CacheInvalidationBus;
+import com.nestly.server.services.UserService;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Shared test data and in-memory stand-ins, so the micro benchmarks measure our code
+// rather than a database.
+final class Fixtures {
+
+    static final String JWT_SECRET = "benchmark-secret-benchmark-secret-benchmark-secret-0123456789";
+    static final String EMAIL = "guest@nestly.com";
+
+    private Fixtures() {
+    }
+
+    static JwtUtil jwtUtil() {
+        JwtUtil jwtUtil = new JwtUtil();
+        try {
+            Field secret = JwtUtil.class.getDeclaredField("secret");
+            secret.setAccessible(true);
+            secret.set(jwtUtil, JWT_SECRET);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("JwtUtil.secret not found", e);
+        }
+        return jwtUtil;
+    }
+
+    static User user(long id, String email) {
+        User user = new User("guest" + id, email, "$2a$10$placeholderplaceholderplaceholderplaceholderplace", Role.USER);
+        user.setId(id);
+        user.setEnabled(true);
+        return user;
+    }
+
+    // Never polls or publishes; only lookups and registration are benchmarked
+    static UserService userService(User... users) {
+        return new UserService(userRepository(users), new CacheInvalidationBus(null, 500, 10_000, 10_000, 60),
+                null, 10_000);
+    }
+
+    // ✅ Only the lookups UserService and the JWT filter use; anything else fails loudly
+    static UserRepository userRepository(User... users) {
+        Map<String, User> byEmail = new ConcurrentHashMap<>();
+        Map<String, User> byUsername = new ConcurrentHashMap<>();
+        List<User> seeded = new ArrayList<>(List.of(users));
+        seeded.add(user(1, EMAIL));
+        for (User user : seeded) {
+            byEmail.put(user.getEmail(), user);
+            byUsername.put(user.getUsername(), user);
+        }
+
+        return (UserRepository) Proxy.newProxyInstance(UserRepository.class.getClassLoader(),
+                new Class<?>[] { UserRepository.class },
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "findByEmail":
+                            return Optional.ofNullable(byEmail.get((String) args[0]));
+                        case "findByUsername":
+                            return Optional.ofNullable(byUsername.get((String) args[0]));
+                        case "save":
+                            return args[0]; // registration benchmarks never keep users
+                        case "toString":
+                            return "InMemoryUserRepository";
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    static List<Room> rooms(int count) {
+        List<Room> rooms = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Room room = new Room("Room " + i, i % 2 == 0 ? "Deluxe" : "Standard", 80.0 + i % 200, i % 10 == 0,
+                    "Bright room with a view over the old town, breakfast included", "/images/room-" + i + ".jpg",
+                    true, "City " + i % 25, i + " Main Street");
+            room.setId((long) i + 1);
+            rooms.add(room);
+        }
+        return rooms;
+    }
+
+    static List<Booking> bookings(int count, List<Room> rooms) {
+        List<Booking> bookings = new ArrayList<>(count);
+        User guest = user(1, EMAIL);
+        LocalDate start = LocalDate.of(2025, 1, 1);
+        for (int i = 0; i < count; i++) {
+            bookings.add(Booking.builder()
+                    .id((long) i + 1)
+                    .user(guest)
+                    .room(rooms.get(i % rooms.size()))
+                    .checkInDate(start.plusDays(i))
+                    .checkOutDate(start.plusDays(i + 3))
+                    .guests(2)
+                    .status("CONFIRMED")
+                    .paypalCaptureId("CAPTURE-" + i)
+                    .refundStatus("PENDING")
+                    .amount(240.0)
+                    .build());
+        }
+        return bookings;
+    }
+}
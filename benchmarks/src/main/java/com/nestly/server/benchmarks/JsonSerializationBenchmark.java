@@ -0,0 +1,48 @@
+package com.nestly.server.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.nestly.server.models.Booking;
+import com.nestly.server.models.Room;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Response bodies of GET /api/rooms and GET /api/bookings at different list sizes
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonSerializationBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    public int size;
+
+    private ObjectMapper objectMapper;
+    private List<Room> rooms;
+    private List<Booking> bookings;
+
+    @Setup
+    public void setUp() {
+        // Same date handling as Boot's auto-configured mapper
+        objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        rooms = Fixtures.rooms(size);
+        bookings = Fixtures.bookings(size, Fixtures.rooms(Math.max(1, size / 10)));
+    }
+
+    @Benchmark
+    public byte[] roomList() throws Exception {
+        return objectMapper.writeValueAsBytes(rooms);
+    }
+
+    @Benchmark
+    public byte[] bookingList() throws Exception {
+        return objectMapper.writeValueAsBytes(bookings);
+    }
+}
@@ -0,0 +1,434 @@
+package com.nestly.server.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.nestly.server.config.JwtUtil;
+import com.nestly.server.simulator.LatencyDistribution;
+import com.nestly.server.simulator.PayPalSimulator;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Date;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// End-to-end load test: boots the app on embedded H2 with the PayPal simulator behind it,
+// seeds users, rooms and past bookings, then drives a weighted scenario mix over real HTTP.
+//
+// Arrivals follow an open model (Poisson at load.rate scenarios/second) and never wait for
+// earlier scenarios to finish, so a slow server shows up as latency instead of lower load.
+// The first request of a scenario is timed from its scheduled start (no coordinated omission).
+// Per-endpoint percentiles and throughput are printed and written as JSON; the process exits
+// with status 1 when any SLO in load-test-slo.properties is missed.
+//
+// Settings are system properties (see the load-test execution in benchmarks/pom.xml).
+public class LoadTest {
+
+    private static final String PASSWORD = "password123";
+    private static final LocalDate FIRST_FUTURE_STAY = LocalDate.now().plusDays(30);
+    private static final String[] CITIES = { "Lisbon", "Porto", "Madrid", "Paris", "Berlin", "Rome", "Vienna" };
+
+    private final int users = Integer.getInteger("load.users", 200);
+    private final int rooms = Integer.getInteger("load.rooms", 100);
+    private final int pastBookings = Integer.getInteger("load.bookings", 10_000);
+    private final double rate = Double.parseDouble(System.getProperty("load.rate", "50"));
+    private final int warmupSeconds = Integer.getInteger("load.warmup-seconds", 10);
+    private final int durationSeconds = Integer.getInteger("load.duration-seconds", 60);
+    private final int maxInFlight = Integer.getInteger("load.max-in-flight", 2000);
+    private final double paypalMedianMs = Double.parseDouble(System.getProperty("load.paypal-median-ms", "150"));
+    private final double paypalP99Ms = Double.parseDouble(System.getProperty("load.paypal-p99-ms", "600"));
+    private final String reportFile = System.getProperty("load.report", "target/load-test-report.json");
+    private final String sloFile = System.getProperty("load.slo", "");
+
+    private final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private final Map<String, EndpointStats> stats = new ConcurrentHashMap<>();
+    private final Queue<Long> cancellableBookings = new ConcurrentLinkedQueue<>();
+    private final AtomicLong nextStaySlot = new AtomicLong();
+    private final AtomicLong droppedArrivals = new AtomicLong();
+
+    private HttpClient http;
+    private String baseUrl;
+    private String[] tokens;
+    private volatile boolean recording;
+
+    // Scenario weights, in arrivals per 100
+    private enum Scenario {
+        BROWSE(45), BOOKED_DATES(25), LOGIN(10), BOOK(15), CANCEL(5);
+
+        private final int weight;
+
+        Scenario(int weight) {
+            this.weight = weight;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.exit(new LoadTest().run() ? 0 : 1);
+    }
+
+    private boolean run() throws Exception {
+        PayPalSimulator paypal = new PayPalSimulator(new PayPalSimulator.Settings()
+                .latency(LatencyDistribution.logNormal(paypalMedianMs, paypalP99Ms))
+                .workerThreads(maxInFlight));
+        paypal.start();
+        ConfigurableApplicationContext context = EmbeddedApp.start("loadtest",
+                "paypal.base.url=" + paypal.getBaseUrl());
+        try {
+            baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            seed(context.getBean(JdbcTemplate.class));
+            http = HttpClient.newBuilder()
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .executor(Executors.newFixedThreadPool(8))
+                    .build();
+
+            System.out.printf("Load test: %.1f scenarios/s, %ds warm-up, %ds measured, %d users, %d rooms, %d bookings%n",
+                    rate, warmupSeconds, durationSeconds, users, rooms, pastBookings);
+            drive(warmupSeconds, false);
+            drive(durationSeconds, true);
+
+            Map<String, Object> report = report();
+            Files.createDirectories(Path.of(reportFile).toAbsolutePath().getParent());
+            objectMapper.writeValue(Path.of(reportFile).toFile(), report);
+            System.out.println("Report written to " + reportFile);
+            return checkSlos();
+        } finally {
+            context.close();
+            paypal.stop();
+        }
+    }
+
+    // Users share one BCrypt hash so seeding stays fast; tokens are minted with the app's secret
+    private void seed(JdbcTemplate jdbc) {
+        String hash = new BCryptPasswordEncoder().encode(PASSWORD);
+        List<Object[]> userRows = new ArrayList<>();
+        for (int i = 1; i <= users; i++) {
+            userRows.add(new Object[] { i, email(i), hash, "user" + i });
+        }
+        jdbc.batchUpdate("insert into users (id, email, enabled, password, role, username) "
+                + "values (?, ?, true, ?, 'USER', ?)", userRows);
+
+        List<Object[]> roomRows = new ArrayList<>();
+        for (int i = 1; i <= rooms; i++) {
+            roomRows.add(new Object[] { i, "Room " + i, i % 3 == 0 ? "Suite" : "Standard", 60 + i % 240,
+                    i % 10 == 0, "Seeded room " + i, "/images/room-" + i + ".jpg", CITIES[i % CITIES.length],
+                    i + " Main Street" });
+        }
+        jdbc.batchUpdate("insert into rooms (id, name, type, price, featured, description, image_url, available, "
+                + "city, address) values (?, ?, ?, ?, ?, ?, ?, true, ?, ?)", roomRows);
+
+        // Back-to-back past stays per room, ending before today
+        List<Object[]> bookingRows = new ArrayList<>();
+        int perRoom = Math.max(1, pastBookings / rooms);
+        LocalDate firstPastStay = LocalDate.now().minusDays(3L * perRoom + 1);
+        for (int i = 0; i < pastBookings; i++) {
+            LocalDate in = firstPastStay.plusDays(3L * (i / rooms));
+            bookingRows.add(new Object[] { 1 + i % rooms, 1 + i % users, Date.valueOf(in),
+                    Date.valueOf(in.plusDays(2)), "CAPTURE-SEED-" + i });
+            if (bookingRows.size() == 5000) {
+                insertBookings(jdbc, bookingRows);
+            }
+        }
+        insertBookings(jdbc, bookingRows);
+
+        JwtUtil jwtUtil = Fixtures.jwtUtil();
+        tokens = new String[users + 1];
+        for (int i = 1; i <= users; i++) {
+            tokens[i] = jwtUtil.generateToken(email(i));
+        }
+    }
+
+    private static void insertBookings(JdbcTemplate jdbc, List<Object[]> rows) {
+        jdbc.batchUpdate("insert into bookings (room_id, user_id, check_in_date, check_out_date, guests, status, "
+                + "paypal_capture_id, refund_status, amount) values (?, ?, ?, ?, 2, 'CONFIRMED', ?, 'PENDING', 180)",
+                rows);
+        rows.clear();
+    }
+
+    private static String email(int user) {
+        return "user" + user + "@nestly.test";
+    }
+
+    // ✅ Open model: Poisson arrivals on one dispatcher thread, scenarios run on their own threads
+    private void drive(int seconds, boolean measure) throws InterruptedException {
+        ExecutorService workers = Executors.newCachedThreadPool();
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        recording = measure;
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        long next = System.nanoTime();
+        while (next < end) {
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            long scheduled = next;
+            Scenario scenario = pick();
+            if (inFlight.tryAcquire()) {
+                workers.execute(() -> {
+                    try {
+                        runScenario(scenario, scheduled);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            } else if (measure) {
+                droppedArrivals.incrementAndGet(); // harness saturated: counted against the run
+            }
+            double interArrivalSeconds = -Math.log(1 - ThreadLocalRandom.current().nextDouble()) / rate;
+            next += (long) (interArrivalSeconds * 1e9);
+        }
+        workers.shutdown();
+        workers.awaitTermination(60, TimeUnit.SECONDS);
+    }
+
+    private Scenario pick() {
+        int roll = ThreadLocalRandom.current().nextInt(100);
+        for (Scenario scenario : Scenario.values()) {
+            roll -= scenario.weight;
+            if (roll < 0) {
+                return scenario;
+            }
+        }
+        return Scenario.BROWSE;
+    }
+
+    private void runScenario(Scenario scenario, long scheduledNanos) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int user = 1 + random.nextInt(users);
+        long room = 1 + random.nextInt(rooms);
+        try {
+            switch (scenario) {
+                case BROWSE:
+                    send("rooms.list", scheduledNanos, get("/api/rooms", null));
+                    send("rooms.get", System.nanoTime(), get("/api/rooms/" + room, null));
+                    break;
+                case BOOKED_DATES:
+                    send("bookings.booked-dates", scheduledNanos,
+                            get("/api/bookings/room/" + room + "/booked-dates", tokens[user]));
+                    break;
+                case LOGIN:
+                    send("auth.login", scheduledNanos, post("/api/auth/login", null,
+                            "{\"email\":\"" + email(user) + "\",\"password\":\"" + PASSWORD + "\"}"));
+                    break;
+                case BOOK:
+                    book(user, scheduledNanos);
+                    break;
+                case CANCEL:
+                    Long bookingId = cancellableBookings.poll();
+                    if (bookingId != null) {
+                        send("bookings.cancel", scheduledNanos, HttpRequest.newBuilder(uri("/api/bookings/cancel/" + bookingId))
+                                .header("Authorization", "Bearer " + tokens[user])
+                                .PUT(HttpRequest.BodyPublishers.noBody()));
+                    }
+                    break;
+            }
+        } catch (RuntimeException e) {
+            // Already recorded as an error on the failing endpoint; the rest of the scenario is skipped
+        }
+    }
+
+    // Checkout as the frontend does it: create order, capture, then create the booking
+    private void book(int user, long scheduledNanos) {
+        // Every booking gets its own room/date slot so conflicts never mask real errors
+        long slot = nextStaySlot.getAndIncrement();
+        long room = 1 + slot % rooms;
+        LocalDate checkIn = FIRST_FUTURE_STAY.plusDays(3 * (slot / rooms));
+        LocalDate checkOut = checkIn.plusDays(2);
+        double amount = 180;
+
+        JsonNode order = send("paypal.create-order", scheduledNanos, post("/api/paypal/create-order?amount=" + amount
+                + "&userId=" + user + "&roomId=" + room + "&checkInDate=" + checkIn + "&checkOutDate=" + checkOut,
+                null, ""));
+        JsonNode capture = send("paypal.capture-order", System.nanoTime(),
+                post("/api/paypal/capture-order/" + order.path("id").asText(), null, ""));
+        JsonNode booking = send("bookings.create", System.nanoTime(), post("/api/bookings/create", null,
+                "{\"userId\":" + user + ",\"roomId\":" + room + ",\"checkInDate\":\"" + checkIn
+                        + "\",\"checkOutDate\":\"" + checkOut + "\",\"paypalCaptureId\":\""
+                        + capture.path("captureId").asText() + "\",\"amount\":" + amount + "}"));
+        if (booking.hasNonNull("id")) {
+            cancellableBookings.add(booking.get("id").asLong());
+        }
+    }
+
+    private HttpRequest.Builder get(String path, String token) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri(path)).GET();
+        return token != null ? request.header("Authorization", "Bearer " + token) : request;
+    }
+
+    private HttpRequest.Builder post(String path, String token, String json) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json));
+        return token != null ? request.header("Authorization", "Bearer " + token) : request;
+    }
+
+    private URI uri(String path) {
+        return URI.create(baseUrl + path);
+    }
+
+    private JsonNode send(String endpoint, long startNanos, HttpRequest.Builder request) {
+        boolean ok = false;
+        try {
+            HttpResponse<String> response = http.send(request.timeout(Duration.ofSeconds(30)).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            ok = response.statusCode() < 400;
+            if (!ok) {
+                throw new IllegalStateException(endpoint + " returned HTTP " + response.statusCode());
+            }
+            String body = response.body();
+            return body.startsWith("{") ? objectMapper.readTree(body) : objectMapper.nullNode();
+        } catch (IOException e) {
+            throw new IllegalStateException(endpoint + " failed", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(endpoint + " interrupted", e);
+        } finally {
+            if (recording) {
+                stats.computeIfAbsent(endpoint, k -> new EndpointStats()).record(System.nanoTime() - startNanos, ok);
+            }
+        }
+    }
+
+    private Map<String, Object> report() {
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        System.out.printf("%n%-24s %8s %8s %9s %8s %8s %8s %8s%n",
+                "endpoint", "count", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        stats.keySet().stream().sorted().forEach(endpoint -> {
+            EndpointStats.Summary s = stats.get(endpoint).summarize(durationSeconds);
+            endpoints.put(endpoint, s);
+            System.out.printf("%-24s %8d %8d %9.1f %8.1f %8.1f %8.1f %8.1f%n", endpoint, s.count, s.errors,
+                    s.throughput, s.p50Ms, s.p95Ms, s.p99Ms, s.maxMs);
+        });
+        System.out.printf("dropped arrivals: %d%n", droppedArrivals.get());
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("rate", rate);
+        report.put("durationSeconds", durationSeconds);
+        report.put("users", users);
+        report.put("rooms", rooms);
+        report.put("bookings", pastBookings);
+        report.put("droppedArrivals", droppedArrivals.get());
+        report.put("endpoints", endpoints);
+        return report;
+    }
+
+    // Each endpoint may set <endpoint>.p99-ms and <endpoint>.max-error-rate; default.* applies otherwise
+    private boolean checkSlos() throws IOException {
+        Properties slo = new Properties();
+        if (sloFile.isEmpty()) {
+            try (InputStream in = LoadTest.class.getResourceAsStream("/load-test-slo.properties")) {
+                if (in != null) {
+                    slo.load(in);
+                }
+            }
+        } else {
+            try (InputStream in = Files.newInputStream(Path.of(sloFile))) {
+                slo.load(in);
+            }
+        }
+
+        List<String> violations = new ArrayList<>();
+        if (droppedArrivals.get() > 0) {
+            violations.add("harness dropped " + droppedArrivals.get() + " arrivals (load.max-in-flight reached)");
+        }
+        stats.forEach((endpoint, endpointStats) -> {
+            EndpointStats.Summary s = endpointStats.summarize(durationSeconds);
+            String p99 = slo.getProperty(endpoint + ".p99-ms", slo.getProperty("default.p99-ms"));
+            if (p99 != null && s.p99Ms > Double.parseDouble(p99)) {
+                violations.add(String.format("%s p99 %.1f ms > %s ms", endpoint, s.p99Ms, p99));
+            }
+            String errorRate = slo.getProperty(endpoint + ".max-error-rate", slo.getProperty("default.max-error-rate"));
+            double observed = s.count > 0 ? (double) s.errors / s.count : 0;
+            if (errorRate != null && observed > Double.parseDouble(errorRate)) {
+                violations.add(String.format("%s error rate %.4f > %s", endpoint, observed, errorRate));
+            }
+        });
+
+        if (violations.isEmpty()) {
+            System.out.println("✅ All SLOs met");
+            return true;
+        }
+        System.out.println("❌ SLO violations:");
+        violations.forEach(v -> System.out.println("  - " + v));
+        return false;
+    }
+
+    private static final class EndpointStats {
+
+        private long[] latencies = new long[1024];
+        private int count;
+        private int errors;
+
+        synchronized void record(long latencyNanos, boolean ok) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latencyNanos;
+            if (!ok) {
+                errors++;
+            }
+        }
+
+        synchronized Summary summarize(int durationSeconds) {
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            return new Summary(count, errors, (double) count / durationSeconds, percentile(sorted, 0.50),
+                    percentile(sorted, 0.95), percentile(sorted, 0.99), percentile(sorted, 1.0));
+        }
+
+        private static double percentile(long[] sorted, double p) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(p * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+        }
+
+        // Public fields so Jackson writes them into the report as-is
+        static final class Summary {
+            public final int count;
+            public final int errors;
+            public final double throughput;
+            public final double p50Ms;
+            public final double p95Ms;
+            public final double p99Ms;
+            public final double maxMs;
+
+            Summary(int count, int errors, double throughput, double p50Ms, double p95Ms, double p99Ms,
+                    double maxMs) {
+                this.count = count;
+                this.errors = errors;
+                this.throughput = throughput;
+                this.p50Ms = p50Ms;
+                this.p95Ms = p95Ms;
+                this.p99Ms = p99Ms;
+                this.maxMs = maxMs;
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.nestly.server.benchmarks;
+
+import com.nestly.server.models.Role;
+import com.nestly.server.models.User;
+import com.nestly.server.services.UserService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+// BCrypt cost of registration (encode) and login (matches) through UserService
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PasswordHashingBenchmark {
+
+    private static final String PASSWORD = "correct horse battery staple";
+    private static final String LOGIN_EMAIL = "bench@nestly.com";
+
+    private UserService userService;
+
+    @Setup
+    public void setUp() {
+        // Default strength, same as UserService's own encoder
+        User existing = new User("bench", LOGIN_EMAIL, new BCryptPasswordEncoder().encode(PASSWORD), Role.USER);
+        userService = Fixtures.userService(existing);
+    }
+
+    @Benchmark
+    public User register() {
+        // The in-memory repository does not keep saved users, so the name stays free
+        return userService.registerUser(new User("new-user", "new-user@nestly.com", PASSWORD, Role.USER));
+    }
+
+    @Benchmark
+    public User login() {
+        return userService.loginUserByEmail(LOGIN_EMAIL, PASSWORD);
+    }
+}
@@ -0,0 +1,191 @@
+package com.nestly.server.benchmarks;
+
+import com.nestly.server.services.PayPalWebhookService;
+import com.nestly.server.services.RefundReconciliationService;
+import com.nestly.server.simulator.LatencyDistribution;
+import com.nestly.server.simulator.PayPalSimulator;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Date;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// The refund and webhook paths of the real application with platform threads (the
+// default) and with spring.threads.virtual.enabled, against the PayPal simulator at a
+// fixed latency. One invocation is a whole run:
+//   refundReconciliation: RefundReconciliationService.reconcile() resends every QUEUED
+//     refund, then looks up every PENDING one (two simulator calls per booking);
+//   webhookIngestAndApply: one PAYMENT.CAPTURE.REFUNDED webhook per booking POSTed to
+//     /api/paypal/webhook, then PayPalWebhookService.processPending() applies them.
+// The virtual rows need a JDK 21 runtime; on older JDKs their trials fail in setUp and
+// only the platform rows are recorded.
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RefundWebhookThreadsBenchmark {
+
+    private static final LocalDate FIRST_STAY = LocalDate.of(2020, 1, 1);
+
+    @State(Scope.Benchmark)
+    public static class App {
+
+        @Param({ "platform", "virtual" })
+        public String threads;
+
+        @Param({ "2000" })
+        public int bookings;
+
+        // Same as Tomcat's default request threads and the reconciliation lookups in flight
+        @Param({ "200" })
+        public int concurrency;
+
+        @Param({ "100" })
+        public long paypalLatencyMs;
+
+        private PayPalSimulator paypal;
+        private ConfigurableApplicationContext context;
+        private JdbcTemplate jdbc;
+        private RefundReconciliationService refundService;
+        private PayPalWebhookService webhookService;
+        private ExecutorService httpExecutor;
+        private HttpClient http;
+        private String webhookUrl;
+
+        @Setup(Level.Trial)
+        public void setUp() throws Exception {
+            boolean virtual = "virtual".equals(threads);
+            if (virtual && Runtime.version().feature() < 21) {
+                throw new IllegalStateException("Virtual threads need JDK 21, running " + Runtime.version());
+            }
+            paypal = new PayPalSimulator(new PayPalSimulator.Settings()
+                    .latency(LatencyDistribution.fixed(paypalLatencyMs))
+                    .pendingRefundRate(1.0) // every resent refund is looked up once more
+                    .workerThreads(concurrency * 2)); // the simulator must never be the bottleneck
+            paypal.start();
+            context = EmbeddedApp.start("threads" + threads,
+                    "paypal.base.url=" + paypal.getBaseUrl(),
+                    "spring.threads.virtual.enabled=" + virtual,
+                    "refund-reconciliation.concurrency=" + concurrency,
+                    "refund-reconciliation.max-requests-per-second=1000000",
+                    "paypal.webhook.max-concurrent-requests=" + concurrency);
+            jdbc = context.getBean(JdbcTemplate.class);
+            refundService = context.getBean(RefundReconciliationService.class);
+            webhookService = context.getBean(PayPalWebhookService.class);
+            webhookUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port")
+                    + "/api/paypal/webhook";
+            httpExecutor = Executors.newFixedThreadPool(8);
+            http = HttpClient.newBuilder()
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .executor(httpExecutor)
+                    .build();
+            seed();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            httpExecutor.shutdownNow();
+            context.close();
+            paypal.stop();
+        }
+
+        // One captured stay per booking, spread over a handful of rooms
+        private void seed() {
+            jdbc.update("insert into users (id, email, enabled, password, role, username) "
+                    + "values (1, 'guest@nestly.com', true, 'x', 'USER', 'guest')");
+            for (long roomId = 1; roomId <= 10; roomId++) {
+                jdbc.update("insert into rooms (id, name, type, price, featured, available, city) "
+                        + "values (?, ?, 'Standard', 100, false, true, 'Lisbon')", roomId, "Room " + roomId);
+            }
+            List<Object[]> rows = new ArrayList<>();
+            for (int i = 0; i < bookings; i++) {
+                LocalDate in = FIRST_STAY.plusDays(3L * (i / 10));
+                rows.add(new Object[] { 1 + i % 10, Date.valueOf(in), Date.valueOf(in.plusDays(2)), "CAPTURE-" + i });
+            }
+            jdbc.batchUpdate("insert into bookings (room_id, user_id, check_in_date, check_out_date, guests, status, "
+                    + "paypal_capture_id, refund_status, amount) values (?, 1, ?, ?, 2, 'CONFIRMED', ?, 'PENDING', 200)",
+                    rows);
+        }
+    }
+
+    // ✅ Every booking cancelled with its refund still to send
+    @State(Scope.Benchmark)
+    public static class QueuedRefunds {
+
+        @Setup(Level.Invocation)
+        public void reset(App app) {
+            app.jdbc.update("update bookings set status = 'CANCELLED', refund_status = 'QUEUED', "
+                    + "paypal_refund_id = null");
+        }
+    }
+
+    // ✅ Every booking confirmed again and no stored webhooks
+    @State(Scope.Benchmark)
+    public static class RefundWebhooks {
+
+        private List<String> payloads;
+
+        @Setup(Level.Trial)
+        public void build(App app) {
+            payloads = new ArrayList<>(app.bookings);
+            for (int i = 0; i < app.bookings; i++) {
+                payloads.add("{\"id\":\"WH-%d\",\"event_type\":\"%s\",\"resource\":{\"id\":\"REFUND-%d\","
+                        .formatted(i, PayPalWebhookService.CAPTURE_REFUNDED, i)
+                        + "\"links\":[{\"rel\":\"up\",\"href\":\"https://api.paypal.com/v2/payments/captures/CAPTURE-"
+                        + i + "\"}]}}");
+            }
+        }
+
+        @Setup(Level.Invocation)
+        public void reset(App app) {
+            app.jdbc.update("delete from paypal_webhook_events");
+            app.jdbc.update("update bookings set status = 'CONFIRMED', refund_status = 'PENDING', "
+                    + "paypal_refund_id = null");
+        }
+    }
+
+    @Benchmark
+    public int refundReconciliation(App app, QueuedRefunds queued) {
+        return app.refundService.reconcile();
+    }
+
+    // ✅ Returns the number of webhooks the app did not acknowledge
+    @Benchmark
+    public int webhookIngestAndApply(App app, RefundWebhooks webhooks) throws InterruptedException {
+        Semaphore inFlight = new Semaphore(app.concurrency);
+        AtomicInteger rejected = new AtomicInteger();
+        List<CompletableFuture<?>> sent = new ArrayList<>(webhooks.payloads.size());
+        for (String payload : webhooks.payloads) {
+            inFlight.acquire();
+            HttpRequest request = HttpRequest.newBuilder(URI.create(app.webhookUrl))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(payload))
+                    .build();
+            sent.add(app.http.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        if (error != null || response.statusCode() != 200) {
+                            rejected.incrementAndGet();
+                        }
+                        inFlight.release();
+                    }));
+        }
+        CompletableFuture.allOf(sent.toArray(new CompletableFuture<?>[0])).exceptionally(e -> null).join();
+        app.webhookService.processPending();
+        return rejected.get();
+    }
+}
@@ -0,0 +1,106 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Build-time startup probe (mvn -Pfast-startup verify), run with the JDK source launcher.
+// Starts the extracted application several times, once as a plain JVM and once with the
+// AOT-generated context and the CDS archive, and measures process launch -> first 200 from
+// /actuator/health/liveness. Prints the medians and writes them to the report file.
+//
+// Usage: java StartupProbe.java <app dir> <jar> <config file> <port> <runs> <report file>
+public class StartupProbe {
+
+    private static final long TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(120);
+
+    public static void main(String[] args) throws Exception {
+        File appDir = new File(args[0]);
+        String jar = args[1];
+        String config = new File(args[2]).getAbsolutePath();
+        int port = Integer.parseInt(args[3]);
+        int runs = Integer.parseInt(args[4]);
+        Path report = Path.of(args[5]);
+
+        long jvm = median(appDir, "jvm", List.of(), jar, config, port, runs);
+        long fast = median(appDir, "aot-cds",
+                List.of("-XX:SharedArchiveFile=application.jsa", "-Dspring.aot.enabled=true"), jar, config, port, runs);
+
+        Files.createDirectories(report.toAbsolutePath().getParent());
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(report))) {
+            out.println("# Time from process launch to first served request (median of " + runs + " runs)");
+            out.println("time-to-first-request.jvm.ms=" + jvm);
+            out.println("time-to-first-request.aot-cds.ms=" + fast);
+        }
+        System.out.printf("⏱️ Time to first request: plain JVM %d ms | AOT + CDS %d ms (median of %d, %s)%n",
+                jvm, fast, runs, report);
+    }
+
+    private static long median(File appDir, String label, List<String> jvmArgs, String jar, String config,
+            int port, int runs) throws Exception {
+        long[] millis = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            millis[i] = timeToFirstRequest(appDir, label + "-" + i, jvmArgs, jar, config, port);
+        }
+        Arrays.sort(millis);
+        return millis[runs / 2];
+    }
+
+    private static long timeToFirstRequest(File appDir, String run, List<String> jvmArgs, String jar,
+            String config, int port) throws Exception {
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+        command.addAll(jvmArgs);
+        command.addAll(List.of("-jar", jar,
+                "--spring.config.additional-location=file:" + config,
+                "--server.port=" + port,
+                "--management.server.port=" + port));
+
+        long start = System.nanoTime();
+        Process app = new ProcessBuilder(command)
+                .directory(appDir)
+                .redirectErrorStream(true)
+                .redirectOutput(new File(appDir, "startup-probe-" + run + ".log"))
+                .start();
+        try {
+            while (System.nanoTime() - start < TIMEOUT_NANOS) {
+                if (!app.isAlive()) {
+                    throw new IllegalStateException("Application exited during startup, see startup-probe-"
+                            + run + ".log");
+                }
+                if (isLive(port)) {
+                    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                }
+                Thread.sleep(10);
+            }
+            throw new IllegalStateException("Application did not serve a request within 120 s (" + run + ")");
+        } finally {
+            app.destroy();
+            if (!app.waitFor(30, TimeUnit.SECONDS)) {
+                app.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    private static boolean isLive(int port) {
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL(
+                    "http://localhost:" + port + "/actuator/health/liveness").openConnection();
+            connection.setConnectTimeout(100);
+            connection.setReadTimeout(1000);
+            try {
+                return connection.getResponseCode() == 200;
+            } finally {
+                connection.disconnect();
+            }
+        } catch (IOException notListeningYet) {
+            return false;
+        }
+    }
+}
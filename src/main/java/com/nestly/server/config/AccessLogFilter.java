@@ -0,0 +1,52 @@
+package com.nestly.server.config;
+
+import com.nestly.server.services.AccessLogService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+// Records one access-log entry per request. Registered inside the security chain
+// right after SecurityContextHolderFilter so the principal is still available
+// once the rest of the chain has returned.
+public class AccessLogFilter extends OncePerRequestFilter {
+
+    private static final String UNMATCHED_ROUTE = "UNMATCHED";
+
+    private final AccessLogService accessLogService;
+
+    public AccessLogFilter(AccessLogService accessLogService) {
+        this.accessLogService = accessLogService;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain)
+            throws ServletException, IOException {
+
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            // Route template (e.g. /api/rooms/{id}) keeps cardinality bounded
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String route = pattern != null ? pattern.toString() : UNMATCHED_ROUTE;
+
+            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+            String principal = auth != null && !(auth instanceof AnonymousAuthenticationToken)
+                    ? auth.getName()
+                    : null;
+
+            accessLogService.record(request.getMethod(), route, response.getStatus(),
+                    System.nanoTime() - start, principal);
+        }
+    }
+}
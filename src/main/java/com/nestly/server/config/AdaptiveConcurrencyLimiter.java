@@ -0,0 +1,117 @@
+package com.nestly.server.config;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Gradient concurrency limit driven by observed latency.
+// Each window of samples yields a short-term average latency, compared with a slow moving
+// long-term average. While short-term latency stays within tolerance of the long-term one the
+// limit grows by about sqrt(limit) per window; once requests queue up (MySQL or PayPal slowing
+// down) the gradient drops below 1 and the limit shrinks proportionally.
+// Priority classes get a share of the limit, so lower classes are rejected first.
+public class AdaptiveConcurrencyLimiter {
+
+    public enum Priority {
+        LOW, NORMAL, CRITICAL
+    }
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final int windowSize;
+    private final double lowShare;
+    private final double normalShare;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile int limit;
+
+    // Guarded by this; only touched once per completed request
+    private double estimatedLimit;
+    private double longRttNanos;
+    private long windowRttSumNanos;
+    private int windowCount;
+    private int windowMaxInFlight;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double tolerance,
+            int windowSize, double lowShare, double normalShare) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.tolerance = Math.max(1.0, tolerance);
+        this.windowSize = Math.max(1, windowSize);
+        this.lowShare = lowShare;
+        this.normalShare = normalShare;
+        this.estimatedLimit = Math.max(this.minLimit, Math.min(this.maxLimit, initialLimit));
+        this.limit = (int) estimatedLimit;
+    }
+
+    // ✅ Lock-free admission; returns false when the request must be shed
+    public boolean tryAcquire(Priority priority) {
+        int allowed = Math.max(1, (int) (limit * share(priority)));
+        while (true) {
+            int current = inFlight.get();
+            if (current >= allowed) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    // Called once for every acquired permit, with the request's latency
+    public void release(long latencyNanos) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        synchronized (this) {
+            windowRttSumNanos += latencyNanos;
+            windowMaxInFlight = Math.max(windowMaxInFlight, inFlightBefore);
+            if (++windowCount >= windowSize) {
+                updateLimit();
+            }
+        }
+    }
+
+    private void updateLimit() {
+        double shortRtt = (double) windowRttSumNanos / windowCount;
+        int maxInFlight = windowMaxInFlight;
+        windowRttSumNanos = 0;
+        windowCount = 0;
+        windowMaxInFlight = 0;
+
+        if (longRttNanos == 0) {
+            longRttNanos = shortRtt;
+            return;
+        }
+        longRttNanos = longRttNanos * 0.95 + shortRtt * 0.05;
+        // Recover quickly after a long slowdown instead of treating it as the new normal
+        if (longRttNanos > shortRtt * 2) {
+            longRttNanos = shortRtt * 2;
+        }
+        // Too little traffic to tell anything about capacity
+        if (maxInFlight < estimatedLimit / 2) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRttNanos / shortRtt));
+        double next = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, estimatedLimit * 0.8 + next * 0.2));
+        limit = (int) estimatedLimit;
+    }
+
+    private double share(Priority priority) {
+        switch (priority) {
+            case LOW:
+                return lowShare;
+            case NORMAL:
+                return normalShare;
+            default:
+                return 1.0;
+        }
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
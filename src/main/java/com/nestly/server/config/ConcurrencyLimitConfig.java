@@ -0,0 +1,39 @@
+package com.nestly.server.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+// Adaptive concurrency limit for all /api requests (concurrency-limit.* properties).
+// Ordered after the metrics filters so shed requests still show up in http.server.requests,
+// and before Spring Security so a rejected request costs no JWT validation.
+@Configuration
+public class ConcurrencyLimitConfig {
+
+    @Bean
+    public AdaptiveConcurrencyLimiter adaptiveConcurrencyLimiter(
+            @Value("${concurrency-limit.initial-limit:50}") int initialLimit,
+            @Value("${concurrency-limit.min-limit:10}") int minLimit,
+            @Value("${concurrency-limit.max-limit:200}") int maxLimit,
+            @Value("${concurrency-limit.latency-tolerance:2.0}") double tolerance,
+            @Value("${concurrency-limit.window-size:100}") int windowSize,
+            @Value("${concurrency-limit.low-priority-share:0.5}") double lowShare,
+            @Value("${concurrency-limit.normal-priority-share:0.8}") double normalShare) {
+        return new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit, tolerance, windowSize,
+                lowShare, normalShare);
+    }
+
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(AdaptiveConcurrencyLimiter limiter,
+            MeterRegistry meterRegistry,
+            @Value("${concurrency-limit.enabled:true}") boolean enabled) {
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration =
+                new FilterRegistrationBean<>(new ConcurrencyLimitFilter(limiter, meterRegistry));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 20);
+        registration.setEnabled(enabled);
+        return registration;
+    }
+}
@@ -0,0 +1,81 @@
+package com.nestly.server.config;
+
+import com.nestly.server.config.AdaptiveConcurrencyLimiter.Priority;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+
+// Admission control in front of Spring Security: requests beyond the adaptive limit are
+// answered with an immediate 503 instead of queueing on a Tomcat thread.
+// Checkout (booking create/cancel, PayPal) may use the whole limit, catalog reads and auth
+// most of it, and admin listings only the lower part, so they are shed first.
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final Map<Priority, Counter> shed = new EnumMap<>(Priority.class);
+
+    public ConcurrencyLimitFilter(AdaptiveConcurrencyLimiter limiter, MeterRegistry meterRegistry) {
+        this.limiter = limiter;
+        for (Priority priority : Priority.values()) {
+            shed.put(priority, Counter.builder("http.server.requests.shed")
+                    .tag("priority", priority.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+        Gauge.builder("http.server.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .register(meterRegistry);
+        Gauge.builder("http.server.concurrency.in.flight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .register(meterRegistry);
+    }
+
+    // ✅ Classified by path only: cheap, and done before handler mapping or JWT parsing
+    static Priority classify(String method, String path) {
+        if (path.startsWith("/api/paypal/")
+                || path.equals("/api/bookings/create")
+                || path.startsWith("/api/bookings/cancel/")) {
+            return Priority.CRITICAL;
+        }
+        if (("GET".equals(method) && path.equals("/api/bookings"))
+                || path.startsWith("/api/analytics/")) {
+            return Priority.LOW;
+        }
+        return Priority.NORMAL;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        // Health probes must answer even when the app is overloaded
+        return request.getRequestURI().startsWith("/actuator/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain)
+            throws ServletException, IOException {
+
+        Priority priority = classify(request.getMethod(), request.getRequestURI());
+        if (!limiter.tryAcquire(priority)) {
+            shed.get(priority).increment();
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setHeader("Retry-After", "1");
+            response.setContentType("application/json");
+            response.getWriter().write("{\"error\":\"Server is busy, please retry\"}");
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            limiter.release(System.nanoTime() - start);
+        }
+    }
+}
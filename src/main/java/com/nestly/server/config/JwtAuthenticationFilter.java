@@ -1,10 +1,14 @@
 package com.nestly.server.config;
 
 import com.nestly.server.services.UserService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -13,16 +17,28 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    private static final Logger log = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
+
     private final JwtUtil jwtUtil;
     private final UserService userService;
+    private final Timer authenticatedTimer;
+    private final Timer anonymousTimer;
 
-    public JwtAuthenticationFilter(JwtUtil jwtUtil, UserService userService) {
+    public JwtAuthenticationFilter(JwtUtil jwtUtil, UserService userService, MeterRegistry meterRegistry) {
         this.jwtUtil = jwtUtil;
         this.userService = userService;
+        // Time spent authenticating only, not the rest of the chain
+        this.authenticatedTimer = Timer.builder("security.jwt.filter")
+                .tag("outcome", "authenticated")
+                .register(meterRegistry);
+        this.anonymousTimer = Timer.builder("security.jwt.filter")
+                .tag("outcome", "anonymous")
+                .register(meterRegistry);
     }
 
     @Override
@@ -31,6 +47,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             FilterChain filterChain)
             throws ServletException, IOException {
 
+        long start = System.nanoTime();
+
         // Extract the Authorization header
         final String authHeader = request.getHeader("Authorization");
         String email = null;
@@ -42,7 +60,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             try {
                 email = jwtUtil.extractEmail(token);
             } catch (Exception e) {
-                System.out.println("⚠️ Invalid JWT token: " + e.getMessage());
+                log.debug("⚠️ Invalid JWT token: {}", e.getMessage());
             }
         }
 
@@ -61,6 +79,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 SecurityContextHolder.getContext().setAuthentication(authToken);
             }
         }
+        boolean authenticated = SecurityContextHolder.getContext().getAuthentication() != null;
+        (authenticated ? authenticatedTimer : anonymousTimer).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
         filterChain.doFilter(request, response);
     }
 }
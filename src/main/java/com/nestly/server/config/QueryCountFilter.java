@@ -0,0 +1,55 @@
+package com.nestly.server.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Records how many SQL statements each request ran (http.server.requests.queries),
+// tagged like http.server.requests so the two can be compared per route.
+// Registered ahead of the security chain so the JWT filter's user lookup is counted.
+public class QueryCountFilter extends OncePerRequestFilter {
+
+    private static final String UNMATCHED_ROUTE = "UNMATCHED";
+
+    private final MeterRegistry meterRegistry;
+    // Meter lookup through the builder costs more than the recording itself
+    private final Map<String, DistributionSummary> summaries = new ConcurrentHashMap<>();
+
+    public QueryCountFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain)
+            throws ServletException, IOException {
+
+        QueryCountingStatementInspector.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            int queries = QueryCountingStatementInspector.stop();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            summary(request.getMethod(), pattern != null ? pattern.toString() : UNMATCHED_ROUTE).record(queries);
+        }
+    }
+
+    private DistributionSummary summary(String method, String route) {
+        return summaries.computeIfAbsent(method + " " + route,
+                key -> DistributionSummary.builder("http.server.requests.queries")
+                        .baseUnit("statements")
+                        .tag("method", method)
+                        .tag("uri", route)
+                        .register(meterRegistry));
+    }
+}
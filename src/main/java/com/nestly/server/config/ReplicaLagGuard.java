@@ -0,0 +1,76 @@
+package com.nestly.server.config;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+// Read-your-writes guard for the replica. After a client commits a write, its reads
+// stay on the primary for pinMillis so replication lag never hides its own bookings.
+// The pin travels with the client as a cookie holding the time it ends, so it holds on
+// whichever instance the load balancer picks next; the rest of the writing request is
+// pinned through a request attribute. Background jobs have no client and are never pinned.
+public class ReplicaLagGuard {
+
+    public static final String COOKIE_NAME = "nestly_primary_until";
+
+    private static final String PINNED_UNTIL = ReplicaLagGuard.class.getName() + ".pinnedUntil";
+
+    private final long pinMillis;
+
+    public ReplicaLagGuard(long pinMillis) {
+        this.pinMillis = pinMillis;
+    }
+
+    public void recordWrite() {
+        ServletRequestAttributes attributes = currentRequest();
+        if (attributes == null || pinMillis <= 0) {
+            return;
+        }
+        long until = System.currentTimeMillis() + pinMillis;
+        attributes.getRequest().setAttribute(PINNED_UNTIL, until);
+        HttpServletResponse response = attributes.getResponse();
+        if (response != null && !response.isCommitted()) {
+            Cookie cookie = new Cookie(COOKIE_NAME, Long.toString(until));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) Math.max(1, (pinMillis + 999) / 1000));
+            response.addCookie(cookie);
+        }
+    }
+
+    public boolean isPinnedToPrimary() {
+        ServletRequestAttributes attributes = currentRequest();
+        if (attributes == null) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        HttpServletRequest request = attributes.getRequest();
+        if (request.getAttribute(PINNED_UNTIL) instanceof Long until && until >= now) {
+            return true;
+        }
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return false;
+        }
+        for (Cookie cookie : cookies) {
+            if (COOKIE_NAME.equals(cookie.getName())) {
+                try {
+                    long until = Long.parseLong(cookie.getValue());
+                    // A client can only pin itself, and never for longer than a write would (plus clock skew)
+                    return until >= now && until <= now + 2 * pinMillis;
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static ServletRequestAttributes currentRequest() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes instanceof ServletRequestAttributes servletAttributes ? servletAttributes : null;
+    }
+}
@@ -0,0 +1,35 @@
+package com.nestly.server.config;
+
+import com.nestly.server.services.AccessLogService;
+import com.nestly.server.services.BookingArchivalService;
+import com.nestly.server.services.BookingConsistencyService;
+import com.nestly.server.services.CacheInvalidationBus;
+import com.nestly.server.services.ImageGarbageCollector;
+import com.nestly.server.services.PayPalWebhookService;
+import com.nestly.server.services.RefundReconciliationService;
+import com.nestly.server.services.RoomRetirementService;
+import com.nestly.server.services.RoomSimilarityService;
+import com.nestly.server.services.RoomSuggestService;
+import com.nestly.server.services.WaitlistService;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Background jobs (@Scheduled) run on Spring's task scheduler, never on request threads.
+// Pool size is set with spring.task.scheduling.pool.size.
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+
+    // ✅ @Scheduled methods are only registered when their bean is created, so beans that run
+    // background work stay eager under spring.main.lazy-initialization (fast-startup profile)
+    @Bean
+    static LazyInitializationExcludeFilter eagerBackgroundJobs() {
+        return LazyInitializationExcludeFilter.forBeanTypes(PayPalWebhookService.class,
+                RefundReconciliationService.class, BookingArchivalService.class, CacheInvalidationBus.class,
+                AccessLogService.class, WaitlistService.class, RoomSuggestService.class,
+                RoomSimilarityService.class, RoomRetirementService.class,
+                BookingConsistencyService.class, ImageGarbageCollector.class);
+    }
+}
@@ -1,8 +1,8 @@
 package com.nestly.server.config;
 
 import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.nestly.server.repositories.UserRepository;
+import com.nestly.server.services.AccessLogService;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.annotation.Order;
@@ -11,25 +11,17 @@ import org.springframework.security.config.annotation.authentication.configurati
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.context.SecurityContextHolderFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
-import org.springframework.web.filter.OncePerRequestFilter;
 
-import jakarta.servlet.FilterChain;
-import jakarta.servlet.ServletException;
-import jakarta.servlet.http.HttpServletRequest;
-import jakarta.servlet.http.HttpServletResponse;
-
-import java.io.IOException;
 import java.util.List;
 
 @Configuration
@@ -39,10 +31,13 @@ public class SecurityConfig {
 
     private final UserRepository userRepository;
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
+    private final AccessLogService accessLogService;
 
-    public SecurityConfig(UserRepository userRepository, JwtAuthenticationFilter jwtAuthenticationFilter) {
+    public SecurityConfig(UserRepository userRepository, JwtAuthenticationFilter jwtAuthenticationFilter,
+            AccessLogService accessLogService) {
         this.userRepository = userRepository;
         this.jwtAuthenticationFilter = jwtAuthenticationFilter;
+        this.accessLogService = accessLogService;
     }
 
     @Bean
@@ -50,10 +45,14 @@ public class SecurityConfig {
     public SecurityFilterChain actuatorSecurity(HttpSecurity http) throws Exception {
         http
                 .securityMatcher("/actuator/**")
-                .authorizeHttpRequests(auth -> auth.anyRequest().permitAll())
+                // ✅ Only probes are public; metrics (prometheus) need an admin (basic auth or JWT)
+                .authorizeHttpRequests(auth -> auth
+                        .requestMatchers("/actuator/health", "/actuator/health/**", "/actuator/info").permitAll()
+                        .anyRequest().hasRole("ADMIN"))
                 .csrf(csrf -> csrf.disable())
+                .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
                 .httpBasic(basic -> {
-                }); // optional but helps for testing
+                }); // Prometheus scrapes with basic auth
 
         return http.build();
     }
@@ -68,22 +67,28 @@ public class SecurityConfig {
                         .requestMatchers("/api/auth/register", "/api/auth/login", "/api/auth/test",
                                 "/api/auth/forgot-password")
                         .permitAll()
-                        .requestMatchers("/api/rooms", "/api/rooms/featured", "/api/rooms/{id}").permitAll()
+                        .requestMatchers("/api/rooms", "/api/rooms/featured", "/api/rooms/suggest",
+                                "/api/rooms/{id}", "/api/rooms/{id}/similar")
+                        .permitAll()
 
                         // ✅ Admin-only endpoints
                         .requestMatchers("/api/rooms/upload", "/api/rooms/delete/**").hasRole("ADMIN")
+                        .requestMatchers("/api/rooms/*/retire", "/api/rooms/*/retirement").hasRole("ADMIN")
+                        .requestMatchers("/api/analytics/**").hasRole("ADMIN")
                         .requestMatchers("/images/**").permitAll()
 
                         // ✅ Booking endpoints
                         // .requestMatchers("/api/bookings/create").hasRole("USER")
                         .requestMatchers("/api/bookings/create").permitAll()
                         .requestMatchers("/api/bookings/**").hasAnyRole("USER", "ADMIN")
+                        .requestMatchers("/api/waitlist/**").hasAnyRole("USER", "ADMIN")
                         // .requestMatchers("/api/paypal/**").permitAll() // Allow PayPal endpoints
                         .requestMatchers("/api/paypal/**").permitAll()
                         // .requestMatchers("/actuator/**").permitAll()
                         .anyRequest().authenticated())
                 .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
-                .addFilterAfter(loggingFilter(), UsernamePasswordAuthenticationFilter.class);
+                // Not a bean on purpose: Boot would also register it outside the security chain
+                .addFilterAfter(new AccessLogFilter(accessLogService), SecurityContextHolderFilter.class);
 
         return http.build();
     }
@@ -103,46 +108,6 @@ public class SecurityConfig {
         return source;
     }
 
-    // ✅ Optional Logging Filter
-    @Bean
-    public OncePerRequestFilter loggingFilter() {
-        return new OncePerRequestFilter() {
-            @Override
-            protected void doFilterInternal(HttpServletRequest request,
-                    HttpServletResponse response,
-                    FilterChain filterChain)
-                    throws IOException, ServletException {
-
-                Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-
-                if (auth != null) {
-                    ObjectMapper mapper = new ObjectMapper();
-                    try {
-                        String authJson = mapper.writerWithDefaultPrettyPrinter().writeValueAsString(auth);
-                        System.out.println("\n===============================");
-                        System.out.println("🔎 Request URL: " + request.getRequestURI());
-                        System.out.println("🔎 Authenticated User: " + auth.getName());
-                        System.out.println("🔎 Authorities: " + auth.getAuthorities());
-                        System.out.println("🔎 Full Authentication JSON:\n" + authJson);
-
-                        if ((request.getRequestURI().startsWith("/api/rooms/upload") ||
-                                request.getRequestURI().startsWith("/api/rooms/delete")) &&
-                                auth.getAuthorities().stream()
-                                        .noneMatch(a -> a.getAuthority().equals("ROLE_ADMIN"))) {
-                            System.out.println("⚠️ ALERT: Non-admin user tried to access ADMIN endpoint!");
-                        }
-
-                        System.out.println("===============================\n");
-                    } catch (Exception e) {
-                        System.out.println("⚠️ Failed to log auth object: " + e.getMessage());
-                    }
-                }
-
-                filterChain.doFilter(request, response);
-            }
-        };
-    }
-
     // ✅ UserDetailsService for AuthenticationManager
     @Bean
     public UserDetailsService userDetailsService() {
@@ -0,0 +1,89 @@
+package com.nestly.server.controllers;
+
+import com.nestly.server.services.BookingConsistencyService;
+import com.nestly.server.services.BookingRollupService;
+import com.nestly.server.services.OccupancyHeatmapService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/analytics")
+@CrossOrigin(origins = "${frontend.url:http://localhost:5173}")
+public class AnalyticsController {
+
+    private final BookingRollupService rollupService;
+    private final OccupancyHeatmapService heatmapService;
+    private final BookingConsistencyService consistencyService;
+
+    public AnalyticsController(BookingRollupService rollupService, OccupancyHeatmapService heatmapService,
+            BookingConsistencyService consistencyService) {
+        this.rollupService = rollupService;
+        this.heatmapService = heatmapService;
+        this.consistencyService = consistencyService;
+    }
+
+    // ✅ Occupancy, booked nights and revenue by room, city or month, e.g.
+    // GET /api/analytics/occupancy?groupBy=city&from=2025-01&to=2025-12
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/occupancy")
+    public ResponseEntity<?> getOccupancy(
+            @RequestParam(defaultValue = "month") String groupBy,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to) {
+        try {
+            YearMonth toMonth = to != null ? YearMonth.parse(to) : YearMonth.now();
+            YearMonth fromMonth = from != null ? YearMonth.parse(from) : toMonth.minusMonths(11);
+            BookingRollupService.GroupBy grouping = BookingRollupService.GroupBy.valueOf(groupBy.toUpperCase());
+            return ResponseEntity.ok(rollupService.query(grouping, fromMonth, toMonth));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("Expected groupBy=room|city|month and from/to as yyyy-MM");
+        }
+    }
+
+    // ✅ Every room in a city against every night of a month, e.g.
+    // GET /api/analytics/heatmap?city=Hyderabad&month=2025-07
+    // occupied[i] is roomIds[i]'s month as a bitmask: bit d set = night of day d + 1 is booked
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/heatmap")
+    public ResponseEntity<?> getHeatmap(@RequestParam String city, @RequestParam(required = false) String month) {
+        try {
+            YearMonth yearMonth = month != null ? YearMonth.parse(month) : YearMonth.now();
+            return ResponseEntity.ok(heatmapService.build(city, yearMonth));
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Expected month as yyyy-MM");
+        }
+    }
+
+    // Recomputes the rollups from all bookings, including archived ones
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/rollups/rebuild")
+    public Map<String, Object> rebuildRollups() {
+        return Map.of("rows", rollupService.rebuild());
+    }
+
+    // ✅ Starts a scan of every booking for overlapping stays and refund mismatches in the
+    // background; GET /consistency-check shows it RUNNING, then its summary
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/consistency-check")
+    public ResponseEntity<?> runConsistencyCheck() {
+        Long id = consistencyService.startAsync();
+        if (id == null) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("A consistency check is already running");
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(Map.of("id", id, "status", "RUNNING"));
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/consistency-check")
+    public ResponseEntity<?> getLastConsistencyCheck() {
+        BookingConsistencyService.Report report = consistencyService.getLastReport();
+        return report != null ? ResponseEntity.ok(report) : ResponseEntity.noContent().build();
+    }
+}
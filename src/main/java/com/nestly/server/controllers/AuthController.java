@@ -4,6 +4,8 @@ import com.nestly.server.models.LoginRequest;
 import com.nestly.server.models.User;
 import com.nestly.server.config.JwtUtil;
 import com.nestly.server.services.UserService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import java.util.Map;
@@ -13,6 +15,8 @@ import java.util.Map;
 @CrossOrigin(origins = "${frontend.url:http://localhost:5173}")
 public class AuthController {
 
+    private static final Logger logger = LoggerFactory.getLogger(AuthController.class);
+
     private final UserService userService;
     private final JwtUtil jwtUtil;
 
@@ -51,7 +55,7 @@ public class AuthController {
     public ResponseEntity<?> login(@RequestBody LoginRequest request) {
         try {
             User user = userService.loginUserByEmail(request.getEmail(), request.getPassword());
-            System.out.println("✅ User fetched from DB: " + user);
+            logger.debug("✅ User fetched from DB: userId={}", user.getId());
             String token = jwtUtil.generateToken(user.getEmail());
 
             // ✅ Include userId, email, role, and token in response
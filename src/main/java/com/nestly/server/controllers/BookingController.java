@@ -1,13 +1,15 @@
 package com.nestly.server.controllers;
 
 import com.nestly.server.models.Booking;
+import com.nestly.server.services.BookingConflictException;
 import com.nestly.server.services.BookingService;
-import com.nestly.server.services.PayPalService;
+import com.nestly.server.services.ChangeVersionService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Map;
@@ -23,11 +25,11 @@ public class BookingController {
     private static final Logger logger = LoggerFactory.getLogger(BookingController.class);
 
     private final BookingService bookingService;
-    private final PayPalService payPalService;
+    private final ChangeVersionService changeVersions;
 
-    public BookingController(BookingService bookingService, PayPalService payPalService) {
+    public BookingController(BookingService bookingService, ChangeVersionService changeVersions) {
         this.bookingService = bookingService;
-        this.payPalService = payPalService;
+        this.changeVersions = changeVersions;
     }
 
     @PostMapping("/create")
@@ -40,16 +42,30 @@ public class BookingController {
             String paypalCaptureId = (String) bookingData.get("paypalCaptureId");
             Double amount = ((Number) bookingData.get("amount")).doubleValue();
 
+            // The PayPal webhook may have created this booking already if the browser was slow
+            if (paypalCaptureId != null) {
+                Optional<Booking> existing = bookingService.getBookingByCaptureId(paypalCaptureId);
+                if (existing.isPresent())
+                    return ResponseEntity.ok(existing.get());
+            }
+
             boolean available = bookingService.isRoomAvailable(roomId,
                     LocalDate.parse(checkInDate), LocalDate.parse(checkOutDate));
             if (!available)
                 return ResponseEntity.status(HttpStatus.CONFLICT)
                         .body("Room not available for the selected dates");
+            if (bookingService.isHeldForOtherUser(roomId, LocalDate.parse(checkInDate),
+                    LocalDate.parse(checkOutDate), userId))
+                return ResponseEntity.status(HttpStatus.CONFLICT)
+                        .body("Room is held for a waitlisted guest for the selected dates");
 
             Booking booking = bookingService.createBooking(userId, roomId, checkInDate, checkOutDate, paypalCaptureId,
                     amount);
             return ResponseEntity.ok(booking);
 
+        } catch (BookingConflictException e) {
+            // Lost a race with another booking after the checks above
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Error creating booking: " + e.getMessage());
@@ -62,13 +78,19 @@ public class BookingController {
     }
 
     @GetMapping("/room/{roomId}/booked-dates")
-    public List<Map<String, LocalDate>> getBookedDates(@PathVariable Long roomId) {
+    public ResponseEntity<List<Map<String, LocalDate>>> getBookedDates(@PathVariable Long roomId,
+            WebRequest request) {
+        // Versioned per room: unchanged calendars are a 304 without touching bookings
+        String etag = changeVersions.etag(ChangeVersionService.roomBookings(roomId));
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
         List<Booking> bookings = bookingService.getBookingsByRoom(roomId);
-        return bookings.stream()
+        return ResponseEntity.ok().eTag(etag).body(bookings.stream()
                 .map(b -> Map.of(
                         "checkInDate", b.getCheckInDate(),
                         "checkOutDate", b.getCheckOutDate()))
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()));
     }
 
     @GetMapping("/{id}")
@@ -79,18 +101,9 @@ public class BookingController {
     @PutMapping("/cancel/{bookingId}")
     public ResponseEntity<?> cancelBooking(@PathVariable Long bookingId) {
         try {
-            // Fetch the booking first
-            Booking booking = bookingService.getBookingById(bookingId)
-                    .orElseThrow(() -> new RuntimeException("Booking not found"));
-
-            // If there's a PayPal payment, attempt a refund
-            if (booking.getPaypalCaptureId() != null && !booking.getPaypalCaptureId().isEmpty()) {
-                String refundStatus = payPalService.refundPayment(booking.getPaypalCaptureId(), booking.getAmount());
-                booking.setRefundStatus(refundStatus); // optional: store refund status in booking
-            }
-
-            // Cancel booking in DB
+            // Cancel booking in DB first, then send the queued PayPal refund outside the transaction
             bookingService.cancelBooking(bookingId);
+            bookingService.sendQueuedRefund(bookingId);
 
             Booking updatedBooking = bookingService.getBookingById(bookingId).get();
             return ResponseEntity.ok(updatedBooking);
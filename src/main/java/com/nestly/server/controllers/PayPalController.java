@@ -1,7 +1,9 @@
 package com.nestly.server.controllers;
 
 import com.nestly.server.services.PayPalService;
+import com.nestly.server.services.PayPalWebhookService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.slf4j.Logger;
@@ -19,11 +21,22 @@ public class PayPalController {
     @Autowired
     private PayPalService payPalService;
 
+    @Autowired
+    private PayPalWebhookService payPalWebhookService;
+
+    // Booking details are optional; when present they ride along as the order's custom_id
     @PostMapping("/create-order")
-    public ResponseEntity<Map<String, Object>> createOrder(@RequestParam double amount) {
+    public ResponseEntity<Map<String, Object>> createOrder(@RequestParam double amount,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) Long roomId,
+            @RequestParam(required = false) String checkInDate,
+            @RequestParam(required = false) String checkOutDate) {
         log.info("💰 Received request to create PayPal order for amount: {}", amount);
         try {
-            Map<String, Object> orderResponse = payPalService.createOrder(amount);
+            String customId = userId != null && roomId != null && checkInDate != null && checkOutDate != null
+                    ? PayPalWebhookService.bookingReference(userId, roomId, checkInDate, checkOutDate)
+                    : null;
+            Map<String, Object> orderResponse = payPalService.createOrder(amount, customId);
             log.info("✅ PayPal order created successfully");
             return ResponseEntity.ok(orderResponse);
         } catch (Exception e) {
@@ -70,4 +83,26 @@ public class PayPalController {
             return ResponseEntity.internalServerError().body(Map.of("error", e.getMessage()));
         }
     }
+
+    // ✅ PayPal webhook: verify, store, acknowledge. Events are applied in the background.
+    @PostMapping("/webhook")
+    public ResponseEntity<Void> webhook(@RequestBody byte[] body,
+            @RequestHeader(value = "PAYPAL-TRANSMISSION-ID", required = false) String transmissionId,
+            @RequestHeader(value = "PAYPAL-TRANSMISSION-TIME", required = false) String transmissionTime,
+            @RequestHeader(value = "PAYPAL-TRANSMISSION-SIG", required = false) String transmissionSig,
+            @RequestHeader(value = "PAYPAL-CERT-URL", required = false) String certUrl,
+            @RequestHeader(value = "PAYPAL-AUTH-ALGO", required = false) String authAlgo) {
+        PayPalWebhookService.IngestResult result = payPalWebhookService.ingest(body, transmissionId,
+                transmissionTime, transmissionSig, certUrl, authAlgo);
+        switch (result) {
+            case ACCEPTED:
+            case DUPLICATE:
+                return ResponseEntity.ok().build();
+            case BUSY:
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+            default:
+                log.warn("⚠️ Rejected PayPal webhook: {}", result);
+                return ResponseEntity.badRequest().build();
+        }
+    }
 }
@@ -1,10 +1,18 @@
 package com.nestly.server.controllers;
 
 import com.nestly.server.models.Room;
+import com.nestly.server.services.ChangeVersionService;
+import com.nestly.server.services.RoomRetirementService;
 import com.nestly.server.services.RoomService;
+import com.nestly.server.services.RoomSimilarityService;
+import com.nestly.server.services.RoomSuggestIndex;
+import com.nestly.server.services.RoomSuggestService;
 
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
@@ -16,24 +24,63 @@ import java.util.List;
 public class RoomController {
 
     private final RoomService roomService;
+    private final ChangeVersionService changeVersions;
+    private final RoomSuggestService suggestService;
+    private final RoomSimilarityService similarityService;
+    private final RoomRetirementService retirementService;
 
-    public RoomController(RoomService roomService) {
+    public RoomController(RoomService roomService, ChangeVersionService changeVersions,
+            RoomSuggestService suggestService, RoomSimilarityService similarityService,
+            RoomRetirementService retirementService) {
         this.roomService = roomService;
+        this.changeVersions = changeVersions;
+        this.suggestService = suggestService;
+        this.similarityService = similarityService;
+        this.retirementService = retirementService;
     }
 
+    // ✅ Catalog reads answer If-None-Match with 304 before any room is loaded
     @GetMapping("/featured")
-    public List<Room> getFeaturedRooms() {
-        return roomService.getFeaturedRooms();
+    public ResponseEntity<List<Room>> getFeaturedRooms(WebRequest request) {
+        long version = changeVersions.version(ChangeVersionService.ROOMS);
+        String etag = ChangeVersionService.etag(ChangeVersionService.ROOMS, version);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(roomService.getFeaturedRooms(version));
     }
 
     @GetMapping
-    public List<Room> getAllRooms() {
-        return roomService.getAllRooms();
+    public ResponseEntity<List<Room>> getAllRooms(WebRequest request) {
+        long version = changeVersions.version(ChangeVersionService.ROOMS);
+        String etag = ChangeVersionService.etag(ChangeVersionService.ROOMS, version);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(roomService.getAllRooms(version));
+    }
+
+    // ✅ Search-box autocomplete, one call per keystroke: served from memory
+    @GetMapping("/suggest")
+    public List<RoomSuggestIndex.Suggestion> suggest(@RequestParam String prefix,
+            @RequestParam(defaultValue = "8") int limit) {
+        return suggestService.suggest(prefix, limit);
     }
 
     @GetMapping("/{id}")
-    public Room getRoomById(@PathVariable Long id) {
-        return roomService.getRoomById(id);
+    public ResponseEntity<Room> getRoomById(@PathVariable Long id, WebRequest request) {
+        long version = changeVersions.version(ChangeVersionService.room(id));
+        String etag = ChangeVersionService.etag(ChangeVersionService.room(id), version);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(roomService.getRoomById(id, version));
+    }
+
+    // ✅ Precomputed neighbours, best match first
+    @GetMapping("/{id}/similar")
+    public List<Room> getSimilarRooms(@PathVariable Long id) {
+        return similarityService.similar(id);
     }
 
     @DeleteMapping("/{id}")
@@ -42,6 +89,27 @@ public class RoomController {
         return "Room with ID " + id + " has been deleted successfully!";
     }
 
+    // ✅ Cancels the room's future bookings and refunds them in the background; poll /retirement
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/{id}/retire")
+    public ResponseEntity<?> retireRoom(@PathVariable Long id) {
+        try {
+            return ResponseEntity.accepted().body(retirementService.retire(id));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Error retiring room: " + e.getMessage());
+        }
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/{id}/retirement")
+    public ResponseEntity<?> getRetirement(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(retirementService.getProgress(id));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        }
+    }
+
     @GetMapping("/test")
     public String test() {
         return "API is working!";
@@ -0,0 +1,62 @@
+package com.nestly.server.controllers;
+
+import com.nestly.server.models.WaitlistEntry;
+import com.nestly.server.services.WaitlistService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+// Offers show up here: an OFFERED entry holds its nights until holdExpiresAt
+@RestController
+@RequestMapping("/api/waitlist")
+@CrossOrigin(origins = "${frontend.url:http://localhost:5173}")
+public class WaitlistController {
+
+    private final WaitlistService waitlistService;
+
+    public WaitlistController(WaitlistService waitlistService) {
+        this.waitlistService = waitlistService;
+    }
+
+    @PostMapping("/join")
+    public ResponseEntity<?> join(@RequestBody Map<String, Object> request) {
+        try {
+            Long userId = ((Number) request.get("userId")).longValue();
+            Long roomId = ((Number) request.get("roomId")).longValue();
+            String checkInDate = (String) request.get("checkInDate");
+            String checkOutDate = (String) request.get("checkOutDate");
+
+            WaitlistEntry entry = waitlistService.join(userId, roomId, checkInDate, checkOutDate);
+            return ResponseEntity.ok(entry);
+
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("Error joining waitlist: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/my-entries")
+    public ResponseEntity<?> getMyEntries(@RequestParam Long userId) {
+        try {
+            List<WaitlistEntry> entries = waitlistService.getEntriesByUser(userId);
+            return ResponseEntity.ok(entries);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error fetching waitlist entries: " + e.getMessage());
+        }
+    }
+
+    @DeleteMapping("/{entryId}")
+    public ResponseEntity<?> leave(@PathVariable Long entryId, @RequestParam Long userId) {
+        try {
+            waitlistService.leave(entryId, userId);
+            return ResponseEntity.ok("Left waitlist");
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("Error leaving waitlist: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.nestly.server.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.NotFound;
+import org.hibernate.annotations.NotFoundAction;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Read-only view of bookings moved out of the hot table by BookingArchivalService
+@Entity
+@Table(name = "bookings_archive")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ArchivedBooking {
+
+    @Id
+    private Long id; // Same id the booking had in bookings
+
+    // ✅ No foreign keys on the archive: the user or room may be gone, which maps to null
+    @ManyToOne
+    @NotFound(action = NotFoundAction.IGNORE)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @ManyToOne
+    @NotFound(action = NotFoundAction.IGNORE)
+    @JoinColumn(name = "room_id", nullable = false)
+    private Room room;
+
+    // Plain ids for lookups, so queries never depend on the user or room still existing
+    @Column(name = "user_id", insertable = false, updatable = false)
+    private Long userId;
+
+    @Column(name = "room_id", insertable = false, updatable = false)
+    private Long roomId;
+
+    private LocalDate checkInDate;
+    private LocalDate checkOutDate;
+    private int guests;
+
+    private String status;
+
+    private String paypalCaptureId;
+    private String refundStatus;
+    private String paypalRefundId;
+
+    private Double amount;
+
+    private LocalDateTime archivedAt;
+
+    // ✅ Same shape as a live booking so history endpoints return one type
+    public Booking toBooking() {
+        return Booking.builder()
+                .id(id)
+                .user(user)
+                .room(room)
+                .checkInDate(checkInDate)
+                .checkOutDate(checkOutDate)
+                .guests(guests)
+                .status(status)
+                .paypalCaptureId(paypalCaptureId)
+                .refundStatus(refundStatus)
+                .paypalRefundId(paypalRefundId)
+                .amount(amount)
+                .build();
+    }
+}
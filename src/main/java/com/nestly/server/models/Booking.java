@@ -32,6 +32,7 @@ public class Booking {
 
     private String paypalCaptureId; // PayPal capture ID
     private String refundStatus; // PENDING, COMPLETED, FAILED
+    private String paypalRefundId; // PayPal refund ID, used to reconcile PENDING refunds
 
     private Double amount; // Booking amount
 }
@@ -0,0 +1,40 @@
+package com.nestly.server.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "paypal_webhook_events")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PayPalWebhookEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, unique = true)
+    private String eventId; // PayPal event ID, used to drop duplicate deliveries
+
+    private String eventType; // e.g. PAYMENT.CAPTURE.COMPLETED
+
+    @Lob
+    @Column(nullable = false)
+    private String payload; // Raw JSON body as received
+
+    private String status; // RECEIVED, PROCESSING, PROCESSED, IGNORED, FAILED
+
+    @Column(length = 1000)
+    private String error;
+
+    private LocalDateTime receivedAt;
+    private LocalDateTime processedAt;
+
+    @Column(length = 64)
+    private String claimedBy; // consumer batch holding the event while PROCESSING
+
+    private LocalDateTime claimedAt;
+}
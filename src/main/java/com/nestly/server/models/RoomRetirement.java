@@ -0,0 +1,34 @@
+package com.nestly.server.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+// A retired room: its future bookings were cancelled and are being (or have been) refunded
+@Entity
+@Table(name = "room_retirements")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RoomRetirement {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, unique = true)
+    private Long roomId;
+
+    @Column(nullable = false, length = 20)
+    private String status; // REFUNDING, COMPLETED
+
+    private int cancelledBookings;
+    private int refundsRequested; // Cancelled bookings with a PayPal capture to refund
+
+    @Column(nullable = false)
+    private LocalDateTime requestedAt;
+
+    private LocalDateTime heartbeatAt; // Lease of the instance sending the refunds
+    private LocalDateTime completedAt;
+}
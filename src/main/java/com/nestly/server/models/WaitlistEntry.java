@@ -0,0 +1,40 @@
+package com.nestly.server.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// A user waiting for a room and date range that was fully booked
+@Entity
+@Table(name = "waitlist_entries")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class WaitlistEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id; // Also the FIFO position
+
+    @Column(nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private Long roomId;
+
+    @Column(nullable = false)
+    private LocalDate checkInDate;
+
+    @Column(nullable = false)
+    private LocalDate checkOutDate;
+
+    @Column(nullable = false, length = 20)
+    private String status; // WAITING, OFFERED, BOOKED, EXPIRED, CANCELLED
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime holdExpiresAt; // While OFFERED, the nights are held for this user until then
+}
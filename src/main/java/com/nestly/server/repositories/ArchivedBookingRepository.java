@@ -0,0 +1,29 @@
+package com.nestly.server.repositories;
+
+import com.nestly.server.models.ArchivedBooking;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ArchivedBookingRepository extends JpaRepository<ArchivedBooking, Long> {
+
+    List<ArchivedBooking> findByUserId(Long userId);
+
+    boolean existsByRoomId(Long roomId);
+
+    // Copies hot rows into the archive; caller deletes them from bookings in the same transaction
+    @Modifying
+    @Query(value = "insert into bookings_archive (id, amount, check_in_date, check_out_date, guests, "
+            + "paypal_capture_id, paypal_refund_id, refund_status, status, room_id, user_id, archived_at) "
+            + "select id, amount, check_in_date, check_out_date, guests, paypal_capture_id, paypal_refund_id, "
+            + "refund_status, status, room_id, user_id, :archivedAt from bookings where id in (:ids)",
+            nativeQuery = true)
+    int copyFromBookings(@Param("ids") Collection<Long> ids, @Param("archivedAt") LocalDateTime archivedAt);
+}
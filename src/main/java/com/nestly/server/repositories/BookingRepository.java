@@ -1,18 +1,135 @@
 package com.nestly.server.repositories;
 
 import com.nestly.server.models.Booking;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface BookingRepository extends JpaRepository<Booking, Long> {
 
-    // Fetch bookings by user ID
-    List<Booking> findByUserId(Long userId);
-    // Alternative: findByUser_Id(Long userId);
+    // Lightweight row for refund reconciliation (avoids loading user and room)
+    interface PendingRefund {
+        Long getId();
+
+        String getRefundId();
+    }
+
+    // Refund still to be sent for a booking cancelled by a room retirement
+    interface QueuedRefund {
+        Long getId();
+
+        String getPaypalCaptureId();
+
+        Double getAmount();
+    }
+
+    // Night range of a confirmed stay (waitlist matching needs nothing else)
+    interface Stay {
+        LocalDate getCheckInDate();
+
+        LocalDate getCheckOutDate();
+    }
+
+    // Fetch bookings by user ID; filters on the user_id column (served by idx_bookings_user_checkin),
+    // whereas the derived query joined users and scanned bookings
+    @Query("select b from Booking b where b.user.id = :userId")
+    List<Booking> findByUserId(@Param("userId") Long userId);
+
+    // Fetch confirmed bookings for a specific room; served by idx_bookings_room_status_dates
+    @Query("select b from Booking b where b.room.id = :roomId and b.status = :status")
+    List<Booking> findByRoomIdAndStatus(@Param("roomId") Long roomId, @Param("status") String status);
+
+    // Any CONFIRMED stay on the room that overlaps [checkIn, checkOut); served by idx_bookings_room_status_dates
+    @Query("select case when count(b) > 0 then true else false end from Booking b "
+            + "where b.room.id = :roomId and b.status = 'CONFIRMED' "
+            + "and b.checkInDate < :checkOut and b.checkOutDate > :checkIn")
+    boolean existsOverlappingBooking(@Param("roomId") Long roomId, @Param("checkIn") LocalDate checkIn,
+            @Param("checkOut") LocalDate checkOut);
+
+    // CONFIRMED stays on the room overlapping [from, to); same index as the overlap check
+    @Query("select b.checkInDate as checkInDate, b.checkOutDate as checkOutDate from Booking b "
+            + "where b.room.id = :roomId and b.status = 'CONFIRMED' "
+            + "and b.checkInDate < :to and b.checkOutDate > :from")
+    List<Stay> findConfirmedStays(@Param("roomId") Long roomId, @Param("from") LocalDate from,
+            @Param("to") LocalDate to);
+
+    // CONFIRMED stays on the room starting on or after the given day (room retirement)
+    @Query("select b from Booking b where b.room.id = :roomId and b.status = 'CONFIRMED' "
+            + "and b.checkInDate >= :from")
+    List<Booking> findConfirmedFrom(@Param("roomId") Long roomId, @Param("from") LocalDate from);
+
+    boolean existsByRoomId(Long roomId);
+
+    // Paid bookings are queued for a refund, the rest have nothing to refund
+    @Modifying
+    @Query("update Booking b set b.status = 'CANCELLED', b.refundStatus = "
+            + "case when b.paypalCaptureId is null then 'NOT_APPLICABLE' else 'QUEUED' end where b.id in :ids")
+    int cancelForRetirement(@Param("ids") Collection<Long> ids);
+
+    @Query("select b.id as id, b.paypalCaptureId as paypalCaptureId, b.amount as amount from Booking b "
+            + "where b.room.id = :roomId and b.refundStatus = 'QUEUED' and b.id > :afterId order by b.id")
+    List<QueuedRefund> findQueuedRefunds(@Param("roomId") Long roomId, @Param("afterId") Long afterId,
+            Pageable page);
+
+    long countByRoomIdAndRefundStatus(Long roomId, String refundStatus);
+
+    // Keyset page of cancellations whose refund was never sent (or its send failed midway)
+    @Query("select b.id as id, b.paypalCaptureId as paypalCaptureId, b.amount as amount from Booking b "
+            + "where b.refundStatus = 'QUEUED' and b.status = 'CANCELLED' and b.id > :afterId order by b.id")
+    List<QueuedRefund> findAllQueuedRefunds(@Param("afterId") Long afterId, Pageable page);
+
+    // Only a still-QUEUED booking takes the outcome, so a duplicate send cannot overwrite it
+    @Modifying
+    @Transactional
+    @Query("update Booking b set b.refundStatus = :refundStatus, b.paypalRefundId = :refundId "
+            + "where b.id = :id and b.refundStatus = 'QUEUED'")
+    int recordQueuedRefund(@Param("id") Long id, @Param("refundStatus") String refundStatus,
+            @Param("refundId") String refundId);
+
+    // Keyset page of stays that ended before the cutoff; cancellations still waiting on a refund stay hot
+    @Query("select b.id from Booking b where b.checkOutDate < :cutoff and b.id > :afterId "
+            + "and not (b.status = 'CANCELLED' and b.refundStatus in ('PENDING', 'QUEUED')) order by b.id")
+    List<Long> findArchivableIds(@Param("cutoff") LocalDate cutoff, @Param("afterId") Long afterId, Pageable page);
+
+    @Query("select distinct b.room.id from Booking b where b.id in :ids")
+    List<Long> findRoomIdsByIds(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("delete from Booking b where b.id in :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ids);
+
+    // Booking paid by a given PayPal capture (captures are unique per booking)
+    Optional<Booking> findFirstByPaypalCaptureId(String paypalCaptureId);
+
+    // Keyset page of cancelled bookings whose refund has not reached a terminal status
+    @Query("select b.id as id, b.paypalRefundId as refundId from Booking b "
+            + "where b.status = 'CANCELLED' and b.refundStatus in :statuses "
+            + "and b.paypalRefundId is not null and b.id > :afterId order by b.id")
+    List<PendingRefund> findPendingRefunds(@Param("statuses") Collection<String> statuses,
+            @Param("afterId") Long afterId, Pageable page);
+
+    @Modifying
+    @Transactional
+    @Query("update Booking b set b.refundStatus = :refundStatus where b.id in :ids")
+    int updateRefundStatus(@Param("ids") Collection<Long> ids, @Param("refundStatus") String refundStatus);
+
+    List<Booking> findByPaypalCaptureIdInAndStatus(Collection<String> captureIds, String status);
 
-    // Fetch confirmed bookings for a specific room
-    List<Booking> findByRoomIdAndStatus(Long roomId, String status);
-    // Alternative: findByRoom_IdAndStatus(Long roomId, String status);
+    // Applies refund / reversal webhooks for a batch of captures in one statement
+    @Modifying
+    @Transactional
+    @Query("update Booking b set b.status = 'CANCELLED', b.refundStatus = :refundStatus "
+            + "where b.paypalCaptureId in :captureIds")
+    int cancelByCaptureIds(@Param("captureIds") Collection<String> captureIds,
+            @Param("refundStatus") String refundStatus);
 }
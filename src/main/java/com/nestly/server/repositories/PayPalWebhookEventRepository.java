@@ -0,0 +1,45 @@
+package com.nestly.server.repositories;
+
+import com.nestly.server.models.PayPalWebhookEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface PayPalWebhookEventRepository extends JpaRepository<PayPalWebhookEvent, Long> {
+
+    // Oldest unprocessed events first
+    List<PayPalWebhookEvent> findByStatusOrderByIdAsc(String status, Pageable page);
+
+    // Only still-RECEIVED events are taken, so of two consumers each event goes to one
+    @Modifying
+    @Transactional
+    @Query("update PayPalWebhookEvent e set e.status = 'PROCESSING', e.claimedBy = :claimedBy, "
+            + "e.claimedAt = :claimedAt where e.id in :ids and e.status = 'RECEIVED'")
+    int claim(@Param("ids") Collection<Long> ids, @Param("claimedBy") String claimedBy,
+            @Param("claimedAt") LocalDateTime claimedAt);
+
+    // Looked up by primary key: claimed_by is not indexed
+    List<PayPalWebhookEvent> findByIdInAndClaimedByOrderByIdAsc(Collection<Long> ids, String claimedBy);
+
+    // Events of a consumer that died mid-batch go back to RECEIVED
+    @Modifying
+    @Transactional
+    @Query("update PayPalWebhookEvent e set e.status = 'RECEIVED', e.claimedBy = null "
+            + "where e.status = 'PROCESSING' and e.claimedAt < :before")
+    int releaseStaleClaims(@Param("before") LocalDateTime before);
+
+    @Modifying
+    @Transactional
+    @Query("update PayPalWebhookEvent e set e.status = :status, e.processedAt = :processedAt where e.id in :ids")
+    int markProcessed(@Param("ids") Collection<Long> ids, @Param("status") String status,
+            @Param("processedAt") LocalDateTime processedAt);
+}
@@ -0,0 +1,49 @@
+package com.nestly.server.repositories;
+
+import com.nestly.server.models.RoomRetirement;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface RoomRetirementRepository extends JpaRepository<RoomRetirement, Long> {
+
+    Optional<RoomRetirement> findByRoomId(Long roomId);
+
+    // REFUNDING retirements nobody has renewed the lease of since the cutoff
+    @Query("select r.id from RoomRetirement r where r.status = 'REFUNDING' "
+            + "and (r.heartbeatAt is null or r.heartbeatAt < :staleBefore) order by r.id")
+    List<Long> findStaleIds(@Param("staleBefore") LocalDateTime staleBefore);
+
+    // ✅ Takes (or renews) the lease; only one instance wins a stale retirement
+    @Modifying
+    @Transactional
+    @Query("update RoomRetirement r set r.heartbeatAt = :now where r.id = :id and r.status = 'REFUNDING' "
+            + "and (r.heartbeatAt is null or r.heartbeatAt < :staleBefore)")
+    int claim(@Param("id") Long id, @Param("now") LocalDateTime now,
+            @Param("staleBefore") LocalDateTime staleBefore);
+
+    @Modifying
+    @Transactional
+    @Query("update RoomRetirement r set r.heartbeatAt = :now where r.id = :id")
+    int heartbeat(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    // Gives the lease up so the resume job retries the remaining refunds on its next run
+    @Modifying
+    @Transactional
+    @Query("update RoomRetirement r set r.heartbeatAt = null where r.id = :id")
+    int release(@Param("id") Long id);
+
+    @Modifying
+    @Transactional
+    @Query("update RoomRetirement r set r.status = 'COMPLETED', r.completedAt = :now, r.heartbeatAt = null "
+            + "where r.id = :id")
+    int markCompleted(@Param("id") Long id, @Param("now") LocalDateTime now);
+}
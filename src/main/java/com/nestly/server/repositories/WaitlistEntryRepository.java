@@ -0,0 +1,67 @@
+package com.nestly.server.repositories;
+
+import com.nestly.server.models.WaitlistEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface WaitlistEntryRepository extends JpaRepository<WaitlistEntry, Long> {
+
+    // FIFO order of a room's entries; used to (re)build its in-memory interval index
+    List<WaitlistEntry> findByRoomIdAndStatusOrderByIdAsc(Long roomId, String status);
+
+    List<WaitlistEntry> findByUserIdOrderByIdDesc(Long userId);
+
+    Optional<WaitlistEntry> findFirstByUserIdAndRoomIdAndCheckInDateAndCheckOutDateAndStatusIn(Long userId,
+            Long roomId, LocalDate checkInDate, LocalDate checkOutDate, Collection<String> statuses);
+
+    // Unexpired holds on the room that overlap [checkIn, checkOut)
+    @Query("select w from WaitlistEntry w where w.roomId = :roomId and w.status = 'OFFERED' "
+            + "and w.checkInDate < :checkOut and w.checkOutDate > :checkIn and w.holdExpiresAt > :now")
+    List<WaitlistEntry> findActiveHolds(@Param("roomId") Long roomId, @Param("checkIn") LocalDate checkIn,
+            @Param("checkOut") LocalDate checkOut, @Param("now") LocalDateTime now);
+
+    // Is any of these nights held for someone else? Checked before a booking is created
+    @Query("select case when count(w) > 0 then true else false end from WaitlistEntry w "
+            + "where w.roomId = :roomId and w.status = 'OFFERED' "
+            + "and w.checkInDate < :checkOut and w.checkOutDate > :checkIn "
+            + "and w.holdExpiresAt > :now and w.userId <> :userId")
+    boolean existsHoldForOtherUser(@Param("roomId") Long roomId, @Param("checkIn") LocalDate checkIn,
+            @Param("checkOut") LocalDate checkOut, @Param("userId") Long userId, @Param("now") LocalDateTime now);
+
+    List<WaitlistEntry> findByStatusAndHoldExpiresAtBeforeOrderByIdAsc(String status, LocalDateTime now,
+            Pageable page);
+
+    @Modifying
+    @Query("update WaitlistEntry w set w.status = 'OFFERED', w.holdExpiresAt = :expiresAt "
+            + "where w.id in :ids and w.status = 'WAITING'")
+    int markOffered(@Param("ids") Collection<Long> ids, @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Query("update WaitlistEntry w set w.status = 'EXPIRED' where w.id in :ids and w.status = 'OFFERED'")
+    int markExpired(@Param("ids") Collection<Long> ids);
+
+    // The room was retired: nothing left to wait for
+    @Modifying
+    @Query("update WaitlistEntry w set w.status = 'CANCELLED' where w.roomId = :roomId "
+            + "and w.status in ('WAITING', 'OFFERED')")
+    int cancelOpenByRoomId(@Param("roomId") Long roomId);
+
+    // The user booked (some of) the nights they were waiting for
+    @Modifying
+    @Query("update WaitlistEntry w set w.status = 'BOOKED' where w.userId = :userId and w.roomId = :roomId "
+            + "and w.status in ('WAITING', 'OFFERED') "
+            + "and w.checkInDate < :checkOut and w.checkOutDate > :checkIn")
+    int markBooked(@Param("userId") Long userId, @Param("roomId") Long roomId,
+            @Param("checkIn") LocalDate checkIn, @Param("checkOut") LocalDate checkOut);
+}
@@ -0,0 +1,119 @@
+package com.nestly.server.services;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Bounded multi-producer / single-consumer ring of pre-allocated slots.
+// Request threads claim a slot with a CAS and never wait: when the ring is full
+// the record is dropped and counted instead of blocking on the writer.
+public class AccessLogRingBuffer {
+
+    // ✅ One mutable slot per ring position, reused for the lifetime of the buffer
+    public static final class Slot {
+        private volatile long sequence;
+        long timestampMillis;
+        String method;
+        String route;
+        int status;
+        long latencyNanos;
+        String principal;
+
+        public long getTimestampMillis() {
+            return timestampMillis;
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        public String getRoute() {
+            return route;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        public long getLatencyNanos() {
+            return latencyNanos;
+        }
+
+        public String getPrincipal() {
+            return principal;
+        }
+    }
+
+    public interface SlotConsumer {
+        void accept(Slot slot);
+    }
+
+    private final Slot[] slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile long head;
+
+    public AccessLogRingBuffer(int requestedCapacity) {
+        int capacity = Integer.highestOneBit(Math.max(2, requestedCapacity - 1)) << 1;
+        this.slots = new Slot[capacity];
+        this.mask = capacity - 1;
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot();
+            slots[i].sequence = i;
+        }
+    }
+
+    // Called from request threads. Returns false (and counts a drop) if the ring is full.
+    public boolean offer(long timestampMillis, String method, String route, int status,
+            long latencyNanos, String principal) {
+        long claimed;
+        do {
+            claimed = tail.get();
+            if (claimed - head >= slots.length) {
+                dropped.incrementAndGet();
+                return false;
+            }
+        } while (!tail.compareAndSet(claimed, claimed + 1));
+
+        Slot slot = slots[(int) (claimed & mask)];
+        slot.timestampMillis = timestampMillis;
+        slot.method = method;
+        slot.route = route;
+        slot.status = status;
+        slot.latencyNanos = latencyNanos;
+        slot.principal = principal;
+        // Publishing the sequence makes the fields above visible to the consumer
+        slot.sequence = claimed + 1;
+        return true;
+    }
+
+    // Called from the single writer thread. Hands up to maxBatch published slots to the consumer.
+    public int drain(SlotConsumer consumer, int maxBatch) {
+        long current = head;
+        int count = 0;
+        while (count < maxBatch) {
+            Slot slot = slots[(int) (current & mask)];
+            if (slot.sequence != current + 1) {
+                break; // not published yet
+            }
+            consumer.accept(slot);
+            slot.principal = null;
+            slot.sequence = current + slots.length;
+            current++;
+            count++;
+        }
+        head = current;
+        return count;
+    }
+
+    public int capacity() {
+        return slots.length;
+    }
+
+    public long size() {
+        return tail.get() - head;
+    }
+
+    public long droppedCount() {
+        return dropped.get();
+    }
+}
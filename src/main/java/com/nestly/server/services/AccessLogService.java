@@ -0,0 +1,134 @@
+package com.nestly.server.services;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+@Service
+public class AccessLogService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccessLogService.class);
+
+    // Dedicated logger so the access log can be routed to its own appender
+    private static final Logger accessLogger = LoggerFactory.getLogger("nestly.access");
+
+    private static final JsonStringEncoder JSON_ENCODER = JsonStringEncoder.getInstance();
+
+    private final boolean enabled;
+    private final double sampleRate;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final AccessLogRingBuffer ringBuffer;
+    private final StringBuilder line = new StringBuilder(256);
+
+    private volatile boolean running;
+    private Thread writerThread;
+
+    public AccessLogService(@Value("${access-log.enabled:true}") boolean enabled,
+            @Value("${access-log.sample-rate:1.0}") double sampleRate,
+            @Value("${access-log.buffer-size:8192}") int bufferSize,
+            @Value("${access-log.batch-size:256}") int batchSize,
+            @Value("${access-log.flush-interval-ms:200}") long flushIntervalMs) {
+        this.enabled = enabled;
+        this.sampleRate = Math.max(0.0, Math.min(1.0, sampleRate));
+        this.batchSize = Math.max(1, batchSize);
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, flushIntervalMs));
+        this.ringBuffer = new AccessLogRingBuffer(bufferSize);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            logger.info("📝 Access log disabled");
+            return;
+        }
+        running = true;
+        writerThread = new Thread(this::runWriter, "access-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        logger.info("📝 Access log started | capacity={} | sampleRate={}", ringBuffer.capacity(), sampleRate);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (writerThread != null) {
+            LockSupport.unpark(writerThread);
+            try {
+                writerThread.join(TimeUnit.NANOSECONDS.toMillis(flushIntervalNanos) * 5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // ✅ Called on the request thread: sampling decision plus one CAS, never blocks
+    public void record(String method, String route, int status, long latencyNanos, String principal) {
+        if (!running) {
+            return;
+        }
+        // Server errors are always kept so sampling never hides an incident
+        if (status < 500 && sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return;
+        }
+        ringBuffer.offer(System.currentTimeMillis(), method, route, status, latencyNanos, principal);
+    }
+
+    public long getDroppedCount() {
+        return ringBuffer.droppedCount();
+    }
+
+    public long getPendingCount() {
+        return ringBuffer.size();
+    }
+
+    private void runWriter() {
+        while (running || ringBuffer.size() > 0) {
+            int written = ringBuffer.drain(this::write, batchSize);
+            if (written == 0) {
+                LockSupport.parkNanos(flushIntervalNanos);
+            }
+        }
+        long dropped = ringBuffer.droppedCount();
+        if (dropped > 0) {
+            logger.warn("⚠️ Access log dropped {} records because the ring buffer was full", dropped);
+        }
+    }
+
+    // One JSON object per line; only the writer thread touches the shared builder
+    private void write(AccessLogRingBuffer.Slot slot) {
+        line.setLength(0);
+        line.append("{\"ts\":\"").append(Instant.ofEpochMilli(slot.getTimestampMillis()))
+                .append("\",\"method\":\"");
+        appendEscaped(slot.getMethod());
+        line.append("\",\"route\":\"");
+        appendEscaped(slot.getRoute());
+        line.append("\",\"status\":").append(slot.getStatus())
+                .append(",\"latencyMicros\":").append(TimeUnit.NANOSECONDS.toMicros(slot.getLatencyNanos()))
+                .append(",\"principal\":");
+        if (slot.getPrincipal() == null) {
+            line.append("null");
+        } else {
+            line.append('"');
+            appendEscaped(slot.getPrincipal());
+            line.append('"');
+        }
+        line.append('}');
+        accessLogger.info(line.toString());
+    }
+
+    // ✅ Quotes, backslashes and control characters (e.g. a newline in a JWT subject) are
+    // escaped, so a value can neither break the JSON nor start a forged log line
+    private void appendEscaped(String value) {
+        JSON_ENCODER.quoteAsString(String.valueOf(value), line);
+    }
+}
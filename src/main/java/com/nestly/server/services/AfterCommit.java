@@ -0,0 +1,27 @@
+package com.nestly.server.services;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Runs in-memory follow-ups (index and cache updates, background hand-offs) only once the
+// surrounding transaction has committed, or right away when there is none. The transaction's
+// connection is still bound at that point: anything needing the database must move to
+// another thread instead of opening a second transaction here.
+public final class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    public static void run(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
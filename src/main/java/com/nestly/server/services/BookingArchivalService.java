@@ -0,0 +1,111 @@
+package com.nestly.server.services;
+
+import com.nestly.server.repositories.ArchivedBookingRepository;
+import com.nestly.server.repositories.BookingRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Moves finished stays from bookings to bookings_archive so the hot table and its
+// indexes only hold current and upcoming bookings.
+// Each chunk is copied and deleted in its own short transaction; chunks are throttled
+// so the job never competes with booking traffic for locks or I/O.
+@Service
+public class BookingArchivalService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookingArchivalService.class);
+
+    private final BookingRepository bookingRepository;
+    private final ArchivedBookingRepository archivedBookingRepository;
+    private final ChangeVersionService changeVersions;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int horizonDays;
+    private final int chunkSize;
+    private final RateLimiter chunkLimiter;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public BookingArchivalService(BookingRepository bookingRepository,
+            ArchivedBookingRepository archivedBookingRepository,
+            ChangeVersionService changeVersions,
+            PlatformTransactionManager transactionManager,
+            @Value("${booking-archival.enabled:true}") boolean enabled,
+            @Value("${booking-archival.horizon-days:180}") int horizonDays,
+            @Value("${booking-archival.chunk-size:500}") int chunkSize,
+            @Value("${booking-archival.max-chunks-per-second:2}") double maxChunksPerSecond) {
+        this.bookingRepository = bookingRepository;
+        this.archivedBookingRepository = archivedBookingRepository;
+        this.changeVersions = changeVersions;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.horizonDays = horizonDays;
+        this.chunkSize = chunkSize;
+        this.chunkLimiter = new RateLimiter(maxChunksPerSecond);
+    }
+
+    @Scheduled(cron = "${booking-archival.cron:0 30 3 * * *}")
+    public void scheduledRun() {
+        if (enabled) {
+            archive();
+        }
+    }
+
+    // ✅ Returns the number of bookings moved to the archive
+    public int archive() {
+        if (!running.compareAndSet(false, true)) {
+            logger.info("💡 Booking archival already running, skipping");
+            return 0;
+        }
+        LocalDate cutoff = LocalDate.now().minusDays(horizonDays);
+        long started = System.currentTimeMillis();
+        int archived = 0;
+        try {
+            long afterId = 0;
+            while (true) {
+                List<Long> ids = bookingRepository.findArchivableIds(cutoff, afterId, PageRequest.of(0, chunkSize));
+                if (ids.isEmpty()) {
+                    break;
+                }
+                chunkLimiter.acquire();
+                if (Thread.currentThread().isInterrupted()) {
+                    logger.warn("⚠️ Booking archival interrupted after {} bookings", archived);
+                    break;
+                }
+                archived += moveChunk(ids);
+                afterId = ids.get(ids.size() - 1);
+            }
+            logger.info("✅ Booking archival finished | cutoff={} | archived={} | took={}ms",
+                    cutoff, archived, System.currentTimeMillis() - started);
+        } catch (Exception e) {
+            logger.error("❌ Booking archival failed after {} bookings", archived, e);
+        } finally {
+            running.set(false);
+        }
+        return archived;
+    }
+
+    private int moveChunk(List<Long> ids) {
+        Integer moved = transactionTemplate.execute(status -> {
+            // Archived stays drop out of the rooms' booked dates
+            changeVersions.bumpRoomBookings(bookingRepository.findRoomIdsByIds(ids));
+            int copied = archivedBookingRepository.copyFromBookings(ids, LocalDateTime.now());
+            int deleted = bookingRepository.deleteByIds(ids);
+            if (copied != deleted) {
+                // A row changed between the copy and the delete; roll back and let the next run retry
+                throw new IllegalStateException("Archived " + copied + " bookings but deleted " + deleted);
+            }
+            return deleted;
+        });
+        return moved != null ? moved : 0;
+    }
+}
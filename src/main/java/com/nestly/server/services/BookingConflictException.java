@@ -0,0 +1,10 @@
+package com.nestly.server.services;
+
+// The stay cannot be booked as requested: the dates are taken, held for a waitlisted
+// guest, or the room was retired. Unlike other booking failures, retrying will not help.
+public class BookingConflictException extends RuntimeException {
+
+    public BookingConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,324 @@
+package com.nestly.server.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Finds bookings that break the booking invariants: overlapping CONFIRMED stays on a room
+// (possible since availability is checked outside the booking's lock) and refund states
+// that do not match the booking's status and capture.
+// The bookings table is streamed through one cursor in (room_id, status, check_in_date)
+// order, which is the existing room/status/dates index; overlaps are found with a sweep
+// line that only remembers the stay reaching furthest in the current room.
+// Every instance schedules the check, but a run first claims the job_leases row, so only
+// one runs at a time. The summary (exact counts) and up to max-reported-issues details are
+// stored in consistency_checks / consistency_check_issues.
+@Service
+public class BookingConsistencyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookingConsistencyService.class);
+
+    private static final String LEASE = "booking-consistency-check";
+
+    private static final String SCAN = "select id, room_id, status, check_in_date, check_out_date, "
+            + "paypal_capture_id, refund_status, paypal_refund_id from bookings "
+            + "order by room_id, status, check_in_date, id";
+
+    private static final String INSERT_ISSUE = "insert into consistency_check_issues "
+            + "(check_id, type, booking_id, room_id, details) values (?, ?, ?, ?, ?)";
+
+    public enum IssueType {
+        OVERLAPPING_STAYS, // CONFIRMED stays on the same room sharing nights
+        REFUND_ON_CONFIRMED, // CONFIRMED booking with a refund recorded or queued
+        REFUND_NOT_REQUESTED, // Paid booking cancelled without any refund attempt
+        REFUND_WITHOUT_CAPTURE, // Refund recorded for a booking that was never paid
+        REFUND_FAILED // PayPal rejected the refund; needs a manual one
+    }
+
+    public record Report(Long id, String status, LocalDateTime startedAt, LocalDateTime completedAt,
+            long bookingsScanned, Map<IssueType, Long> issues, String error) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate cursorTemplate;
+    private final TransactionTemplate readOnlyTx;
+    private final TransactionTemplate writeTx;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService runner;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final boolean enabled;
+    private final long leaseMs;
+    private final long maxReportedIssues;
+
+    public BookingConsistencyService(JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper,
+            @Value("${consistency-check.enabled:true}") boolean enabled,
+            @Value("${consistency-check.fetch-size:-2147483648}") int fetchSize,
+            @Value("${consistency-check.lease-ms:21600000}") long leaseMs,
+            @Value("${consistency-check.max-reported-issues:10000}") long maxReportedIssues) {
+        this.jdbcTemplate = jdbcTemplate;
+        // Own template: the fetch size turns the scan into a server-side stream
+        this.cursorTemplate = new JdbcTemplate(Objects.requireNonNull(jdbcTemplate.getDataSource()));
+        this.cursorTemplate.setFetchSize(fetchSize);
+        // Read-only, so the scan goes to the replica when one is configured
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.writeTx = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        // Runs checks requested over HTTP, off the request thread
+        this.runner = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "booking-consistency");
+            t.setDaemon(true);
+            return t;
+        });
+        this.enabled = enabled;
+        this.leaseMs = leaseMs;
+        this.maxReportedIssues = maxReportedIssues;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        runner.shutdownNow();
+    }
+
+    @Scheduled(cron = "${consistency-check.cron:0 0 4 * * *}")
+    public void scheduledRun() {
+        if (enabled) {
+            Long id = start();
+            if (id != null) {
+                run(id);
+            }
+        }
+    }
+
+    // ✅ Returns the id of the started check, or null when one is already running (on any instance)
+    public Long startAsync() {
+        Long id = start();
+        if (id != null) {
+            runner.execute(() -> run(id));
+        }
+        return id;
+    }
+
+    public Report getLastReport() {
+        List<Report> reports = jdbcTemplate.query("select id, status, started_at, completed_at, bookings_scanned, "
+                + "issue_counts, error from consistency_checks order by id desc limit 1", (rs, i) -> {
+                    Timestamp completedAt = rs.getTimestamp(4);
+                    return new Report(rs.getLong(1), rs.getString(2), rs.getTimestamp(3).toLocalDateTime(),
+                            completedAt != null ? completedAt.toLocalDateTime() : null, rs.getLong(5),
+                            readCounts(rs.getString(6)), rs.getString(7));
+                });
+        return reports.isEmpty() ? null : reports.get(0);
+    }
+
+    // Claims the lease and records the run as RUNNING
+    private Long start() {
+        LocalDateTime now = LocalDateTime.now();
+        int claimed = jdbcTemplate.update("update job_leases set holder = ?, expires_at = ? "
+                + "where name = ? and (expires_at is null or expires_at < ?)",
+                instanceId, now.plus(Duration.ofMillis(leaseMs)), LEASE, now);
+        if (claimed == 0) {
+            logger.info("💡 Booking consistency check already running, skipping");
+            return null;
+        }
+        KeyHolder key = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement("insert into consistency_checks "
+                    + "(status, started_at, bookings_scanned) values ('RUNNING', ?, 0)", new String[] { "id" });
+            ps.setTimestamp(1, Timestamp.valueOf(now));
+            return ps;
+        }, key);
+        return Objects.requireNonNull(key.getKey()).longValue();
+    }
+
+    private void run(long id) {
+        long started = System.currentTimeMillis();
+        try {
+            Sweep sweep = new Sweep();
+            readOnlyTx.executeWithoutResult(status -> cursorTemplate.query(SCAN, rs -> {
+                Date checkIn = rs.getDate(4);
+                Date checkOut = rs.getDate(5);
+                sweep.accept(rs.getLong(1), rs.getLong(2), rs.getString(3),
+                        checkIn != null ? checkIn.toLocalDate() : null,
+                        checkOut != null ? checkOut.toLocalDate() : null,
+                        rs.getString(6), rs.getString(7), rs.getString(8));
+            }));
+
+            writeTx.executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate(INSERT_ISSUE, sweep.details, 500, (ps, issue) -> {
+                    ps.setLong(1, id);
+                    ps.setString(2, String.valueOf(issue.remove("type")));
+                    ps.setLong(3, (Long) issue.remove("bookingId"));
+                    ps.setLong(4, (Long) issue.remove("roomId"));
+                    ps.setString(5, toJson(issue));
+                });
+                jdbcTemplate.update("update consistency_checks set status = 'COMPLETED', completed_at = ?, "
+                        + "bookings_scanned = ?, issue_counts = ? where id = ?",
+                        LocalDateTime.now(), sweep.scanned, toJson(sweep.counts), id);
+            });
+            long total = sweep.counts.values().stream().mapToLong(Long::longValue).sum();
+            if (total > 0) {
+                logger.warn("⚠️ Booking consistency check found issues | checkId={} | scanned={} | issues={}", id,
+                        sweep.scanned, sweep.counts);
+            } else {
+                logger.info("✅ Booking consistency check clean | checkId={} | scanned={} | took={}ms", id,
+                        sweep.scanned, System.currentTimeMillis() - started);
+            }
+        } catch (Exception e) {
+            logger.error("❌ Booking consistency check failed | checkId={}", id, e);
+            String message = String.valueOf(e.getMessage());
+            jdbcTemplate.update("update consistency_checks set status = 'FAILED', completed_at = ?, error = ? "
+                    + "where id = ?", LocalDateTime.now(),
+                    message.length() > 1000 ? message.substring(0, 1000) : message, id);
+        } finally {
+            jdbcTemplate.update("update job_leases set holder = null, expires_at = null where name = ? "
+                    + "and holder = ?", LEASE, instanceId);
+        }
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Map<IssueType, Long> readCounts(String json) {
+        if (json == null) {
+            return Map.of();
+        }
+        try {
+            return objectMapper.readValue(json, new TypeReference<EnumMap<IssueType, Long>>() {
+            });
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Per-scan state: the current room/status group and its furthest-reaching CONFIRMED stay
+    private final class Sweep {
+        private final Map<IssueType, Long> counts = new EnumMap<>(IssueType.class);
+        private final List<Map<String, Object>> details = new ArrayList<>();
+        private long scanned;
+        private long roomId = -1;
+        private String status;
+        private long reachId;
+        private LocalDate reachCheckIn;
+        private LocalDate reachCheckOut;
+
+        private Sweep() {
+            for (IssueType type : IssueType.values()) {
+                counts.put(type, 0L);
+            }
+        }
+
+        private void accept(long id, long room, String bookingStatus, LocalDate checkIn, LocalDate checkOut,
+                String captureId, String refundStatus, String refundId) {
+            scanned++;
+            if (room != roomId || !Objects.equals(bookingStatus, status)) {
+                roomId = room;
+                status = bookingStatus;
+                reachCheckOut = null;
+            }
+
+            boolean confirmed = "CONFIRMED".equalsIgnoreCase(bookingStatus);
+            boolean cancelled = "CANCELLED".equalsIgnoreCase(bookingStatus);
+            if (confirmed && checkIn != null && checkOut != null) {
+                // Sorted by check-in: this stay overlaps an earlier one iff it starts before the furthest check-out
+                if (reachCheckOut != null && checkIn.isBefore(reachCheckOut)) {
+                    Map<String, Object> issue = issue(IssueType.OVERLAPPING_STAYS, id, room);
+                    issue.put("checkInDate", checkIn);
+                    issue.put("checkOutDate", checkOut);
+                    issue.put("overlapsBookingId", reachId);
+                    issue.put("overlapsCheckInDate", reachCheckIn);
+                    issue.put("overlapsCheckOutDate", reachCheckOut);
+                    report(IssueType.OVERLAPPING_STAYS, issue);
+                }
+                if (reachCheckOut == null || checkOut.isAfter(reachCheckOut)) {
+                    reachId = id;
+                    reachCheckIn = checkIn;
+                    reachCheckOut = checkOut;
+                }
+            }
+
+            if (confirmed && (refundId != null || isRefundRecorded(refundStatus)
+                    || "QUEUED".equals(refundStatus))) {
+                report(IssueType.REFUND_ON_CONFIRMED, refundIssue(IssueType.REFUND_ON_CONFIRMED, id, room,
+                        bookingStatus, refundStatus, refundId));
+            }
+            if (cancelled && captureId != null && refundId == null
+                    && (refundStatus == null || "PENDING".equals(refundStatus)
+                            || "NOT_APPLICABLE".equals(refundStatus))) {
+                report(IssueType.REFUND_NOT_REQUESTED, refundIssue(IssueType.REFUND_NOT_REQUESTED, id, room,
+                        bookingStatus, refundStatus, refundId));
+            }
+            if (captureId == null && (refundId != null || isRefundRecorded(refundStatus))) {
+                report(IssueType.REFUND_WITHOUT_CAPTURE, refundIssue(IssueType.REFUND_WITHOUT_CAPTURE, id, room,
+                        bookingStatus, refundStatus, refundId));
+            }
+            if (cancelled && "FAILED".equals(refundStatus)) {
+                report(IssueType.REFUND_FAILED, refundIssue(IssueType.REFUND_FAILED, id, room, bookingStatus,
+                        refundStatus, refundId));
+            }
+        }
+
+        // Statuses that claim money went back (or is on its way) to the guest
+        private boolean isRefundRecorded(String refundStatus) {
+            return "COMPLETED".equals(refundStatus) || "REVERSED".equals(refundStatus);
+        }
+
+        private Map<String, Object> issue(IssueType type, long id, long room) {
+            Map<String, Object> issue = new LinkedHashMap<>();
+            issue.put("type", type);
+            issue.put("bookingId", id);
+            issue.put("roomId", room);
+            return issue;
+        }
+
+        private Map<String, Object> refundIssue(IssueType type, long id, long room, String bookingStatus,
+                String refundStatus, String refundId) {
+            Map<String, Object> issue = issue(type, id, room);
+            issue.put("status", bookingStatus);
+            issue.put("refundStatus", refundStatus);
+            issue.put("paypalRefundId", refundId);
+            return issue;
+        }
+
+        private void report(IssueType type, Map<String, Object> issue) {
+            counts.merge(type, 1L, Long::sum);
+            // Counts stay exact; only the stored details are capped
+            if (details.size() < maxReportedIssues) {
+                details.add(issue);
+            }
+        }
+    }
+}
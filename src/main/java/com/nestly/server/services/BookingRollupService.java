@@ -0,0 +1,218 @@
+package com.nestly.server.services;
+
+import com.nestly.server.models.Booking;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Occupancy and revenue rollups per room and month (table booking_rollups).
+// BookingService applies +/- deltas inside the booking's own transaction, so a rollup
+// row always matches the committed bookings. rebuild() recomputes everything from
+// bookings and bookings_archive when the rollups need to be trusted from scratch, while
+// bookings keep being taken.
+@Service
+public class BookingRollupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookingRollupService.class);
+
+    private static final String UPSERT = "insert into booking_rollups "
+            + "(room_id, month_start, booked_nights, bookings, revenue) values (?, ?, ?, ?, ?) "
+            + "on duplicate key update "
+            + "booked_nights = booked_nights + values(booked_nights), "
+            + "bookings = bookings + values(bookings), "
+            + "revenue = revenue + values(revenue)";
+
+    private static final String INSERT = "insert into booking_rollups "
+            + "(room_id, month_start, booked_nights, bookings, revenue) values (?, ?, ?, ?, ?)";
+
+    private static final String LOCK_ROOM = "select id from rooms where id = ? for update";
+
+    private static final String SCAN_ROOM = "select check_in_date, check_out_date, amount from bookings "
+            + "where room_id = ? and status = 'CONFIRMED' union all "
+            + "select check_in_date, check_out_date, amount from bookings_archive "
+            + "where room_id = ? and status = 'CONFIRMED'";
+
+    public enum GroupBy {
+        ROOM, CITY, MONTH
+    }
+
+    public record Row(String key, YearMonth month, long bookedNights, long availableNights,
+            double occupancyRate, long bookings, double revenue) {
+    }
+
+    private record Delta(long roomId, LocalDate month, int nights, int bookings, double revenue) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public BookingRollupService(JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // ✅ Must run inside the transaction that confirms the booking, after the room row was locked
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordConfirmed(Booking booking) {
+        apply(booking, 1);
+    }
+
+    // ✅ Must run inside the transaction that cancels a CONFIRMED booking, after the room row was locked
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordCancelled(Booking booking) {
+        apply(booking, -1);
+    }
+
+    private void apply(Booking booking, int sign) {
+        if (booking.getRoom() == null || booking.getCheckInDate() == null || booking.getCheckOutDate() == null) {
+            return;
+        }
+        List<Delta> deltas = new ArrayList<>();
+        split(booking.getRoom().getId(), booking.getCheckInDate(), booking.getCheckOutDate(),
+                booking.getAmount(), sign, deltas);
+        jdbcTemplate.batchUpdate(UPSERT, deltas, deltas.size(), (ps, d) -> {
+            ps.setLong(1, d.roomId());
+            ps.setDate(2, Date.valueOf(d.month()));
+            ps.setInt(3, d.nights());
+            ps.setInt(4, d.bookings());
+            ps.setDouble(5, d.revenue());
+        });
+    }
+
+    // One delta per calendar month the stay touches; revenue is split in proportion to nights
+    private static void split(long roomId, LocalDate checkIn, LocalDate checkOut, Double amount, int sign,
+            List<Delta> out) {
+        long totalNights = ChronoUnit.DAYS.between(checkIn, checkOut);
+        if (totalNights <= 0) {
+            return;
+        }
+        double perNight = amount != null ? amount / totalNights : 0;
+        LocalDate cursor = checkIn;
+        while (cursor.isBefore(checkOut)) {
+            LocalDate monthStart = cursor.withDayOfMonth(1);
+            LocalDate nextMonth = monthStart.plusMonths(1);
+            LocalDate segmentEnd = checkOut.isBefore(nextMonth) ? checkOut : nextMonth;
+            int nights = (int) ChronoUnit.DAYS.between(cursor, segmentEnd);
+            int bookings = cursor.equals(checkIn) ? 1 : 0;
+            out.add(new Delta(roomId, monthStart, sign * nights, sign * bookings, sign * perNight * nights));
+            cursor = segmentEnd;
+        }
+    }
+
+    // ✅ Dashboard read: cost depends on rooms x months, never on booking volume
+    @Transactional(readOnly = true)
+    public List<Row> query(GroupBy groupBy, YearMonth from, YearMonth to) {
+        Date fromDate = Date.valueOf(from.atDay(1));
+        Date toDate = Date.valueOf(to.atDay(1));
+        switch (groupBy) {
+            case ROOM:
+                return jdbcTemplate.query("select room_id, month_start, booked_nights, bookings, revenue "
+                        + "from booking_rollups where month_start between ? and ? "
+                        + "order by month_start, room_id",
+                        (rs, i) -> row(String.valueOf(rs.getLong(1)), rs.getDate(2), rs.getLong(3), 1,
+                                rs.getLong(4), rs.getDouble(5)),
+                        fromDate, toDate);
+            case CITY:
+                Map<String, Long> roomsPerCity = new HashMap<>();
+                jdbcTemplate.query("select city, count(*) from rooms group by city",
+                        rs -> {
+                            roomsPerCity.put(rs.getString(1), rs.getLong(2));
+                        });
+                return jdbcTemplate.query("select rm.city, r.month_start, sum(r.booked_nights), sum(r.bookings), "
+                        + "sum(r.revenue) from booking_rollups r join rooms rm on rm.id = r.room_id "
+                        + "where r.month_start between ? and ? group by rm.city, r.month_start "
+                        + "order by r.month_start, rm.city",
+                        (rs, i) -> row(rs.getString(1), rs.getDate(2), rs.getLong(3),
+                                roomsPerCity.getOrDefault(rs.getString(1), 0L), rs.getLong(4), rs.getDouble(5)),
+                        fromDate, toDate);
+            default:
+                Long roomCount = jdbcTemplate.queryForObject("select count(*) from rooms", Long.class);
+                long rooms = roomCount != null ? roomCount : 0;
+                return jdbcTemplate.query("select month_start, sum(booked_nights), sum(bookings), sum(revenue) "
+                        + "from booking_rollups where month_start between ? and ? "
+                        + "group by month_start order by month_start",
+                        (rs, i) -> row("all", rs.getDate(1), rs.getLong(2), rooms, rs.getLong(3), rs.getDouble(4)),
+                        fromDate, toDate);
+        }
+    }
+
+    private static Row row(String key, Date monthStart, long bookedNights, long rooms, long bookings,
+            double revenue) {
+        YearMonth month = YearMonth.from(monthStart.toLocalDate());
+        long availableNights = rooms * month.lengthOfMonth();
+        double occupancy = availableNights > 0 ? (double) bookedNights / availableNights : 0;
+        return new Row(key, month, bookedNights, availableNights, occupancy, bookings, revenue);
+    }
+
+    // Recomputes all rollups from bookings and bookings_archive, one room per transaction.
+    // Each room's scan and swap run under the room's row lock, the lock every rollup writer
+    // (BookingService, RoomRetirementService) takes before applying a delta: no booking of the
+    // room can commit between its scan and its swap, so no concurrent update is lost.
+    public int rebuild() {
+        long started = System.currentTimeMillis();
+        long scanned = 0;
+        int rows = 0;
+        for (Long roomId : jdbcTemplate.queryForList("select id from rooms order by id", Long.class)) {
+            long[] result = transactionTemplate.execute(status -> rebuildRoom(roomId));
+            scanned += result[0];
+            rows += (int) result[1];
+        }
+        jdbcTemplate.update("delete from booking_rollups where room_id not in (select id from rooms)");
+        logger.info("✅ Rebuilt booking rollups | bookingsScanned={} | rows={} | took={}ms",
+                scanned, rows, System.currentTimeMillis() - started);
+        return rows;
+    }
+
+    // Returns { bookings scanned, rollup rows written }
+    private long[] rebuildRoom(long roomId) {
+        if (jdbcTemplate.queryForList(LOCK_ROOM, Long.class, roomId).isEmpty()) {
+            return new long[] { 0, 0 };
+        }
+        // One statement, so a booking being archived meanwhile is counted exactly once
+        Map<LocalDate, Delta> totals = new LinkedHashMap<>();
+        List<Delta> deltas = new ArrayList<>();
+        long[] scanned = { 0 };
+        jdbcTemplate.query(SCAN_ROOM, rs -> {
+            scanned[0]++;
+            Date checkIn = rs.getDate(1);
+            Date checkOut = rs.getDate(2);
+            if (checkIn != null && checkOut != null) {
+                double amount = rs.getDouble(3);
+                split(roomId, checkIn.toLocalDate(), checkOut.toLocalDate(), rs.wasNull() ? null : amount, 1,
+                        deltas);
+                for (Delta d : deltas) {
+                    totals.merge(d.month(), d, (a, b) -> new Delta(a.roomId(), a.month(), a.nights() + b.nights(),
+                            a.bookings() + b.bookings(), a.revenue() + b.revenue()));
+                }
+                deltas.clear();
+            }
+        }, roomId, roomId);
+
+        List<Delta> rows = new ArrayList<>(totals.values());
+        jdbcTemplate.update("delete from booking_rollups where room_id = ?", roomId);
+        jdbcTemplate.batchUpdate(INSERT, rows, 500, (ps, d) -> {
+            ps.setLong(1, d.roomId());
+            ps.setDate(2, Date.valueOf(d.month()));
+            ps.setInt(3, d.nights());
+            ps.setInt(4, d.bookings());
+            ps.setDouble(5, d.revenue());
+        });
+        return new long[] { scanned[0], rows.size() };
+    }
+}
@@ -1,20 +1,32 @@
 package com.nestly.server.services;
 
+import com.nestly.server.models.ArchivedBooking;
 import com.nestly.server.models.Booking;
 import com.nestly.server.models.Room;
 import com.nestly.server.models.User;
+import com.nestly.server.repositories.ArchivedBookingRepository;
 import com.nestly.server.repositories.BookingRepository;
 import com.nestly.server.repositories.RoomRepository;
 import com.nestly.server.repositories.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class BookingService {
@@ -22,70 +34,172 @@ public class BookingService {
     private static final Logger logger = LoggerFactory.getLogger(BookingService.class);
 
     private final BookingRepository bookingRepository;
+    private final ArchivedBookingRepository archivedBookingRepository;
     private final RoomRepository roomRepository;
     private final UserRepository userRepository;
     private final PayPalService payPalService;
+    private final BookingRollupService rollupService;
+    private final ChangeVersionService changeVersions;
+    private final WaitlistService waitlistService;
+    private final TransactionTemplate writeTx;
+    private final Timer createSuccessTimer;
+    private final Timer createFailureTimer;
+    private final Timer availabilityTimer;
 
     public BookingService(BookingRepository bookingRepository,
+            ArchivedBookingRepository archivedBookingRepository,
             RoomRepository roomRepository,
             UserRepository userRepository,
-            PayPalService payPalService) {
+            PayPalService payPalService,
+            BookingRollupService rollupService,
+            ChangeVersionService changeVersions,
+            WaitlistService waitlistService,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry) {
         this.bookingRepository = bookingRepository;
+        this.archivedBookingRepository = archivedBookingRepository;
         this.roomRepository = roomRepository;
         this.userRepository = userRepository;
         this.payPalService = payPalService;
+        this.rollupService = rollupService;
+        this.changeVersions = changeVersions;
+        this.waitlistService = waitlistService;
+        this.writeTx = new TransactionTemplate(transactionManager);
+        this.createSuccessTimer = Timer.builder("booking.create").tag("outcome", "success").register(meterRegistry);
+        this.createFailureTimer = Timer.builder("booking.create").tag("outcome", "failure").register(meterRegistry);
+        this.availabilityTimer = Timer.builder("booking.availability.check").register(meterRegistry);
     }
 
     // ✅ Create Booking
+    // Read-write transaction so the overlap check reads the primary, never a lagging replica.
+    // Idempotent per capture: the browser and the PayPal webhook may both submit it, and the
+    // unique capture index lets only one insert win; the loser returns the winner's booking.
     public Booking createBooking(Long userId, Long roomId, String checkInDateStr, String checkOutDateStr,
             String paypalCaptureId, Double amount) {
         logger.info("🟢 Starting booking creation | userId={} | roomId={} | amount={}", userId, roomId, amount);
 
+        long start = System.nanoTime();
+        boolean success = false;
         try {
-            User user = userRepository.findById(userId)
-                    .orElseThrow(() -> new RuntimeException("User not found for ID=" + userId));
-            Room room = roomRepository.findById(roomId)
-                    .orElseThrow(() -> new RuntimeException("Room not found for ID=" + roomId));
-
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-            LocalDate checkInDate = LocalDate.parse(checkInDateStr, formatter);
-            LocalDate checkOutDate = LocalDate.parse(checkOutDateStr, formatter);
-
-            // Check room availability
-            List<Booking> existingBookings = bookingRepository.findByRoomIdAndStatus(roomId, "CONFIRMED");
-            boolean overlap = existingBookings.stream()
-                    .anyMatch(
-                            b -> checkInDate.isBefore(b.getCheckOutDate()) && checkOutDate.isAfter(b.getCheckInDate()));
-
-            if (overlap)
-                throw new RuntimeException("Room already booked for selected dates");
-
-            Booking booking = Booking.builder()
-                    .user(user)
-                    .room(room)
-                    .checkInDate(checkInDate)
-                    .checkOutDate(checkOutDate)
-                    .status("CONFIRMED")
-                    .paypalCaptureId(paypalCaptureId)
-                    .refundStatus("PENDING")
-                    .amount(amount)
-                    .build();
-
-            Booking saved = bookingRepository.save(booking);
-            logger.info("✅ Booking created successfully: bookingId={} | status={}", saved.getId(), saved.getStatus());
-
-            return saved;
-
+            Booking booking = writeTx.execute(status -> insertBooking(userId, roomId, checkInDateStr,
+                    checkOutDateStr, paypalCaptureId, amount));
+            success = true;
+            return booking;
+        } catch (DataIntegrityViolationException duplicate) {
+            // Rolled back by now: the winner is read in a fresh transaction on the primary
+            Optional<Booking> existing = paypalCaptureId == null ? Optional.empty()
+                    : writeTx.execute(status -> bookingRepository.findFirstByPaypalCaptureId(paypalCaptureId));
+            if (existing.isPresent()) {
+                logger.info("💡 Booking already created concurrently for captureId={} | bookingId={}",
+                        paypalCaptureId, existing.get().getId());
+                success = true;
+                return existing.get();
+            }
+            logger.error("❌ Database error while saving booking", duplicate);
+            throw new RuntimeException("Booking failed due to database issue");
         } catch (DataAccessException dae) {
             logger.error("❌ Database error while saving booking", dae);
             throw new RuntimeException("Booking failed due to database issue");
+        } catch (BookingConflictException conflict) {
+            logger.warn("⚠️ Booking rejected | roomId={} | captureId={} | reason={}", roomId, paypalCaptureId,
+                    conflict.getMessage());
+            throw conflict;
         } catch (Exception e) {
             logger.error("❌ Unexpected error during booking creation", e);
             throw new RuntimeException("Booking creation failed");
+        } finally {
+            (success ? createSuccessTimer : createFailureTimer).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // ✅ A paid capture that can no longer become a stay (see BookingConflictException) is kept
+    // as a CANCELLED booking with its refund QUEUED: the guest gets the money back and admins
+    // see the booking. Not counted in the rollups (never CONFIRMED). Idempotent per capture.
+    public Booking refundUnbookableCapture(Long userId, Long roomId, String checkInDateStr, String checkOutDateStr,
+            String paypalCaptureId, Double amount, String reason) {
+        Booking booking;
+        try {
+            booking = writeTx.execute(status -> bookingRepository.findFirstByPaypalCaptureId(paypalCaptureId)
+                    .orElseGet(() -> bookingRepository.saveAndFlush(Booking.builder()
+                            .user(userRepository.findById(userId)
+                                    .orElseThrow(() -> new RuntimeException("User not found for ID=" + userId)))
+                            .room(roomRepository.findById(roomId)
+                                    .orElseThrow(() -> new RuntimeException("Room not found for ID=" + roomId)))
+                            .checkInDate(LocalDate.parse(checkInDateStr))
+                            .checkOutDate(LocalDate.parse(checkOutDateStr))
+                            .status("CANCELLED")
+                            .paypalCaptureId(paypalCaptureId)
+                            .refundStatus("QUEUED")
+                            .amount(amount)
+                            .build())));
+        } catch (DataIntegrityViolationException duplicate) {
+            // Recorded concurrently; its refund (if still queued) is sent below all the same
+            booking = writeTx.execute(status -> bookingRepository.findFirstByPaypalCaptureId(paypalCaptureId))
+                    .orElseThrow(() -> duplicate);
         }
+        logger.error("❌ Paid capture could not be booked, refund queued | captureId={} | bookingId={} | reason={}",
+                paypalCaptureId, booking.getId(), reason);
+        sendQueuedRefund(booking.getId());
+        return booking;
     }
 
-    // ✅ Cancel Booking and refund
+    private Booking insertBooking(Long userId, Long roomId, String checkInDateStr, String checkOutDateStr,
+            String paypalCaptureId, Double amount) {
+        // ✅ Fast path for a capture that was already turned into a booking
+        if (paypalCaptureId != null) {
+            Optional<Booking> existing = bookingRepository.findFirstByPaypalCaptureId(paypalCaptureId);
+            if (existing.isPresent()) {
+                logger.info("💡 Booking already exists for captureId={} | bookingId={}", paypalCaptureId,
+                        existing.get().getId());
+                return existing.get();
+            }
+        }
+
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found for ID=" + userId));
+        // ✅ Row lock: serializes bookings of the room with each other and with its retirement
+        Room room = roomRepository.findByIdForUpdate(roomId)
+                .orElseThrow(() -> new RuntimeException("Room not found for ID=" + roomId));
+        if (Boolean.FALSE.equals(room.getAvailable()))
+            throw new BookingConflictException("Room is no longer available for booking");
+
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+        LocalDate checkInDate = LocalDate.parse(checkInDateStr, formatter);
+        LocalDate checkOutDate = LocalDate.parse(checkOutDateStr, formatter);
+
+        // Check room availability (indexed overlap query, no need to load every booking)
+        boolean overlap = bookingRepository.existsOverlappingBooking(roomId, checkInDate, checkOutDate);
+
+        if (overlap)
+            throw new BookingConflictException("Room already booked for selected dates");
+
+        // ✅ Nights on hold for a waitlisted guest can only be booked by that guest
+        if (waitlistService.isHeldForOtherUser(roomId, checkInDate, checkOutDate, userId))
+            throw new BookingConflictException("Room is held for a waitlisted guest for selected dates");
+
+        Booking booking = Booking.builder()
+                .user(user)
+                .room(room)
+                .checkInDate(checkInDate)
+                .checkOutDate(checkOutDate)
+                .status("CONFIRMED")
+                .paypalCaptureId(paypalCaptureId)
+                .refundStatus("PENDING")
+                .amount(amount)
+                .build();
+
+        // Flushed now, so a duplicate capture fails here, before the rollups are touched
+        Booking saved = bookingRepository.saveAndFlush(booking);
+        rollupService.recordConfirmed(saved);
+        changeVersions.bump(ChangeVersionService.roomBookings(roomId));
+        waitlistService.recordBooked(userId, roomId, checkInDate, checkOutDate);
+        logger.info("✅ Booking created successfully: bookingId={} | status={}", saved.getId(), saved.getStatus());
+        return saved;
+    }
+
+    // ✅ Cancel Booking; a paid booking is left refund_status = QUEUED for sendQueuedRefund,
+    // so no PayPal call runs while this transaction holds its row locks
+    @Transactional
     public void cancelBooking(Long bookingId) {
         logger.info("🚫 Attempting to cancel booking | bookingId={}", bookingId);
 
@@ -99,25 +213,23 @@ public class BookingService {
                 return;
             }
 
+            // ✅ Only confirmed stays are counted in the rollups; the room lock comes first (see rebuild)
+            if ("CONFIRMED".equalsIgnoreCase(booking.getStatus())) {
+                roomRepository.findByIdForUpdate(booking.getRoom().getId());
+                rollupService.recordCancelled(booking);
+                changeVersions.bump(ChangeVersionService.roomBookings(booking.getRoom().getId()));
+                waitlistService.nightsFreed(booking.getRoom().getId(), booking.getCheckInDate(),
+                        booking.getCheckOutDate());
+            }
+
+            booking.setStatus("CANCELLED");
             // ✅ Prevent re-refund
             if ("COMPLETED".equalsIgnoreCase(booking.getRefundStatus())) {
                 logger.info("💡 Refund already completed for bookingId={}, skipping duplicate refund", bookingId);
-                booking.setStatus("CANCELLED");
-                bookingRepository.save(booking);
-                return;
+            } else {
+                booking.setRefundStatus(booking.getPaypalCaptureId() != null ? "QUEUED" : "NOT_APPLICABLE");
             }
 
-            String refundStatus = "NOT_APPLICABLE";
-
-            if (booking.getPaypalCaptureId() != null) {
-                logger.info("💰 Initiating refund for captureId={}", booking.getPaypalCaptureId());
-                refundStatus = payPalService.refundPayment(booking.getPaypalCaptureId(), booking.getAmount());
-                logger.info("✅ Refund result for bookingId={} => {}", bookingId, refundStatus);
-            }
-
-            booking.setStatus("CANCELLED");
-            booking.setRefundStatus(refundStatus != null ? refundStatus : "FAILED");
-
             bookingRepository.save(booking);
             logger.info("✅ Booking {} cancelled successfully. RefundStatus={}", bookingId, booking.getRefundStatus());
 
@@ -130,26 +242,95 @@ public class BookingService {
         }
     }
 
+    // ✅ Sends the refund of a cancellation once cancelBooking has committed. Not transactional:
+    // the PayPal call holds no connection. The request id makes every resend (here or by
+    // RefundReconciliationService) return the same refund instead of refunding twice.
+    public void sendQueuedRefund(Long bookingId) {
+        Booking booking = bookingRepository.findById(bookingId).orElse(null);
+        if (booking == null || !"QUEUED".equals(booking.getRefundStatus())) {
+            return;
+        }
+        try {
+            PayPalService.RefundResult refund = payPalService.refund(booking.getPaypalCaptureId(),
+                    booking.getAmount() != null ? booking.getAmount() : 0,
+                    PayPalService.refundRequestId(bookingId));
+            String status = refund.getStatus() != null ? refund.getStatus() : "FAILED";
+            bookingRepository.recordQueuedRefund(bookingId, status, refund.getRefundId());
+            logger.info("✅ Refund result for bookingId={} => {}", bookingId, status);
+        } catch (Exception e) {
+            // Stays QUEUED: resent with the same request id by refund reconciliation
+            logger.error("❌ Refund failed for bookingId={}, left queued", bookingId, e);
+        }
+    }
+
+    // ✅ Cancel every booking paid by these captures (refund / reversal webhooks), keeping rollups in step
+    @Transactional
+    public int cancelByCaptureIds(Collection<String> captureIds, String refundStatus) {
+        List<Booking> bookings = bookingRepository.findByPaypalCaptureIdInAndStatus(captureIds, "CONFIRMED");
+        // Room locks before any rollup delta, in id order so two batches never deadlock
+        bookings.stream().map(booking -> booking.getRoom().getId()).distinct().sorted()
+                .forEach(roomRepository::findByIdForUpdate);
+        List<Long> roomIds = new ArrayList<>();
+        for (Booking booking : bookings) {
+            rollupService.recordCancelled(booking);
+            roomIds.add(booking.getRoom().getId());
+            waitlistService.nightsFreed(booking.getRoom().getId(), booking.getCheckInDate(),
+                    booking.getCheckOutDate());
+        }
+        changeVersions.bumpRoomBookings(roomIds);
+        return bookingRepository.cancelByCaptureIds(captureIds, refundStatus);
+    }
+
     // ✅ Utility Methods
+    @Transactional(readOnly = true)
     public List<Booking> getAllBookings() {
         return bookingRepository.findAll();
     }
 
+    // Falls back to the archive: archived bookings keep their id
+    @Transactional(readOnly = true)
     public Optional<Booking> getBookingById(Long id) {
-        return bookingRepository.findById(id);
+        Optional<Booking> booking = bookingRepository.findById(id);
+        if (booking.isPresent()) {
+            return booking;
+        }
+        return archivedBookingRepository.findById(id).map(ArchivedBooking::toBooking);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<Booking> getBookingByCaptureId(String paypalCaptureId) {
+        return bookingRepository.findFirstByPaypalCaptureId(paypalCaptureId);
     }
 
+    // ✅ Full history: current bookings plus archived past stays, ordered by check-in
+    @Transactional(readOnly = true)
     public List<Booking> getBookingsByUser(Long userId) {
-        return bookingRepository.findByUserId(userId);
+        List<Booking> bookings = new ArrayList<>(bookingRepository.findByUserId(userId));
+        for (ArchivedBooking archived : archivedBookingRepository.findByUserId(userId)) {
+            bookings.add(archived.toBooking());
+        }
+        bookings.sort(Comparator.comparing(Booking::getCheckInDate,
+                Comparator.nullsLast(Comparator.naturalOrder())));
+        return bookings;
     }
 
+    @Transactional(readOnly = true)
     public List<Booking> getBookingsByRoom(Long roomId) {
         return bookingRepository.findByRoomIdAndStatus(roomId, "CONFIRMED");
     }
 
+    @Transactional(readOnly = true)
     public boolean isRoomAvailable(Long roomId, LocalDate checkIn, LocalDate checkOut) {
-        List<Booking> existingBookings = bookingRepository.findByRoomIdAndStatus(roomId, "CONFIRMED");
-        return existingBookings.stream()
-                .noneMatch(b -> checkIn.isBefore(b.getCheckOutDate()) && checkOut.isAfter(b.getCheckInDate()));
+        long start = System.nanoTime();
+        try {
+            return !bookingRepository.existsOverlappingBooking(roomId, checkIn, checkOut);
+        } finally {
+            availabilityTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public boolean isHeldForOtherUser(Long roomId, LocalDate checkIn, LocalDate checkOut, Long userId) {
+        return waitlistService.isHeldForOtherUser(roomId, checkIn, checkOut, userId);
     }
 }
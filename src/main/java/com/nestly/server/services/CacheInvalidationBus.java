@@ -0,0 +1,172 @@
+package com.nestly.server.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Cluster-wide invalidation of LocalCache instances without a broker.
+// Writers append (cache, key) rows to cache_invalidations in their own transaction; every
+// instance tails the table by id every poll-interval-ms and applies new rows in id order.
+//
+// Auto-increment ids can commit out of order, so the cursor only moves over contiguous ids.
+// Rows past a hole are applied at once and remembered; a hole still open after gap-timeout-ms
+// is taken to be a rolled-back insert and skipped. A node more than max-backlog rows behind,
+// or unable to poll for longer than the retention period, drops all its caches instead.
+@Service
+public class CacheInvalidationBus {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheInvalidationBus.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<String, LocalCache<?>> caches = new ConcurrentHashMap<>();
+    private final int batchSize;
+    private final long maxBacklog;
+    private final long gapTimeoutMillis;
+    private final long retentionMinutes;
+
+    // Poller state, guarded by this
+    private long cursor = -1; // every id <= cursor has been applied or given up on
+    private long lastPollMillis;
+    private final Set<Long> appliedAhead = new HashSet<>();
+    private final Map<Long, Long> gapSeenAtMillis = new HashMap<>();
+
+    public CacheInvalidationBus(JdbcTemplate jdbcTemplate,
+            @Value("${cache-invalidation.batch-size:500}") int batchSize,
+            @Value("${cache-invalidation.max-backlog:10000}") long maxBacklog,
+            @Value("${cache-invalidation.gap-timeout-ms:10000}") long gapTimeoutMillis,
+            @Value("${cache-invalidation.retention-minutes:60}") long retentionMinutes) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+        this.maxBacklog = maxBacklog;
+        this.gapTimeoutMillis = gapTimeoutMillis;
+        this.retentionMinutes = retentionMinutes;
+    }
+
+    public <V> LocalCache<V> register(String cacheName, LocalCache<V> cache) {
+        caches.put(cacheName, cache);
+        return cache;
+    }
+
+    // ✅ Must run inside the transaction that changes the cached data
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(String cacheName, String key) {
+        jdbcTemplate.update("insert into cache_invalidations (cache_name, cache_key, created_at) values (?, ?, ?)",
+                cacheName, key, Timestamp.valueOf(LocalDateTime.now()));
+        // This instance does not wait for its own poll
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply(cacheName, key);
+            }
+        });
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publishAll(String cacheName) {
+        publish(cacheName, null);
+    }
+
+    @Scheduled(fixedDelayString = "${cache-invalidation.poll-interval-ms:200}")
+    public synchronized void poll() {
+        try {
+            Long max = jdbcTemplate.queryForObject("select max(id) from cache_invalidations", Long.class);
+            long maxId = max != null ? max : 0;
+            long now = System.currentTimeMillis();
+
+            // Caches start empty, so a fresh instance starts at the head of the log
+            if (cursor < 0) {
+                cursor = maxId;
+                lastPollMillis = now;
+                return;
+            }
+            // Too many rows to replay, or rows this instance never saw may already be pruned
+            if (maxId - cursor > maxBacklog || now - lastPollMillis > TimeUnit.MINUTES.toMillis(retentionMinutes)) {
+                flushAll(maxId - cursor);
+                cursor = maxId;
+                appliedAhead.clear();
+                gapSeenAtMillis.clear();
+                lastPollMillis = now;
+                return;
+            }
+
+            List<Map<String, Object>> batch;
+            do {
+                batch = jdbcTemplate.queryForList("select id, cache_name, cache_key from cache_invalidations "
+                        + "where id > ? order by id limit ?", cursor, batchSize);
+                for (Map<String, Object> row : batch) {
+                    long id = ((Number) row.get("id")).longValue();
+                    if (appliedAhead.add(id)) {
+                        apply((String) row.get("cache_name"), (String) row.get("cache_key"));
+                    }
+                }
+            } while (advanceCursor() && batch.size() == batchSize);
+            lastPollMillis = now;
+        } catch (Exception e) {
+            logger.warn("⚠️ Cache invalidation poll failed: {}", e.getMessage());
+        }
+    }
+
+    // Moves the cursor over applied ids and expired holes; true if it moved
+    private boolean advanceCursor() {
+        long start = cursor;
+        long now = System.currentTimeMillis();
+        while (!appliedAhead.isEmpty()) {
+            long next = cursor + 1;
+            if (appliedAhead.remove(next)) {
+                gapSeenAtMillis.remove(next);
+                cursor = next;
+                continue;
+            }
+            long seenAt = gapSeenAtMillis.computeIfAbsent(next, id -> now);
+            if (now - seenAt < gapTimeoutMillis) {
+                break;
+            }
+            gapSeenAtMillis.remove(next);
+            cursor = next;
+        }
+        return cursor > start;
+    }
+
+    private void apply(String cacheName, String key) {
+        LocalCache<?> cache = caches.get(cacheName);
+        if (cache == null) {
+            return;
+        }
+        if (key == null) {
+            cache.invalidateAll();
+        } else {
+            cache.invalidate(key);
+        }
+    }
+
+    private void flushAll(long behind) {
+        logger.warn("⚠️ Cache invalidation log is {} rows ahead of this instance, flushing all local caches", behind);
+        caches.values().forEach(LocalCache::invalidateAll);
+    }
+
+    @Scheduled(fixedDelayString = "${cache-invalidation.prune-interval-ms:600000}")
+    public void prune() {
+        int deleted = jdbcTemplate.update("delete from cache_invalidations where created_at < ?",
+                Timestamp.valueOf(LocalDateTime.now().minusMinutes(retentionMinutes)));
+        if (deleted > 0) {
+            logger.info("🧹 Pruned {} cache invalidation rows", deleted);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.nestly.server.services;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+
+// Change counters behind the catalog and booked-dates ETags.
+// Writers bump a counter in the same transaction as the data change, readers turn the
+// current value into a weak ETag. Counters live in the database so every instance
+// agrees on them.
+@Service
+public class ChangeVersionService {
+
+    public static final String ROOMS = "rooms";
+
+    private static final String BUMP = "insert into change_counters (name, version) values (?, 1) "
+            + "on duplicate key update version = version + 1";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ChangeVersionService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public static String room(Long roomId) {
+        return "room:" + roomId;
+    }
+
+    public static String roomBookings(Long roomId) {
+        return "room:" + roomId + ":bookings";
+    }
+
+    public static String roomWaitlist(Long roomId) {
+        return "room:" + roomId + ":waitlist";
+    }
+
+    public void bump(String name) {
+        jdbcTemplate.update(BUMP, name);
+    }
+
+    // ✅ Bumps in a fixed order so concurrent transactions never deadlock on counter rows
+    public void bumpRoomBookings(Collection<Long> roomIds) {
+        for (Long roomId : new TreeSet<>(roomIds)) {
+            bump(roomBookings(roomId));
+        }
+    }
+
+    public long version(String name) {
+        List<Long> versions = jdbcTemplate.queryForList(
+                "select version from change_counters where name = ?", Long.class, name);
+        return versions.isEmpty() ? 0 : versions.get(0);
+    }
+
+    // Weak: compressed and uncompressed bodies share the same ETag
+    public String etag(String name) {
+        return etag(name, version(name));
+    }
+
+    public static String etag(String name, long version) {
+        return "W/\"" + name + "-" + version + "\"";
+    }
+}
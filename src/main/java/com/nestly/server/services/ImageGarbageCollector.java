@@ -0,0 +1,176 @@
+package com.nestly.server.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+// Deletes room images that no room references any more (uploads whose room was never saved,
+// images of deleted rooms).
+// Only the configured upload directory is swept, never the source tree, and only files named
+// the way room uploads are (a random UUID plus an image extension): bundled assets such as
+// prop-1.jfif are never candidates.
+// The referenced names are loaded into an ImageNameSet first; the directory is then read
+// through a lazy DirectoryStream, one entry at a time, so the listing is never held in memory.
+// Only image files older than the grace period are candidates: a file written by an upload
+// whose room is not committed yet is always younger than that. File checks and deletes are
+// rate limited so the job never saturates the disk.
+@Service
+public class ImageGarbageCollector {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageGarbageCollector.class);
+    private static final Pattern UPLOAD_NAME = Pattern
+            .compile("[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final boolean dryRun;
+    private final Path directory;
+    private final Set<String> extensions;
+    private final Duration gracePeriod;
+    private final RateLimiter scanLimiter;
+    private final RateLimiter deleteLimiter;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public ImageGarbageCollector(JdbcTemplate jdbcTemplate,
+            @Value("${image-gc.enabled:false}") boolean enabled,
+            @Value("${image-gc.dry-run:true}") boolean dryRun,
+            @Value("${image-gc.directory:}") String directory,
+            @Value("${image-gc.extensions:jpg,jpeg,jfif,png,gif,webp,avif}") List<String> extensions,
+            @Value("${image-gc.grace-period-hours:24}") long gracePeriodHours,
+            @Value("${image-gc.max-files-per-second:2000}") double maxFilesPerSecond,
+            @Value("${image-gc.max-deletes-per-second:50}") double maxDeletesPerSecond) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.dryRun = dryRun;
+        this.directory = uploadDirectory(directory);
+        if (enabled && this.directory == null) {
+            throw new IllegalStateException("image-gc.enabled requires image-gc.directory to be set to the "
+                    + "upload directory (not a directory under src/)");
+        }
+        this.extensions = extensions.stream().map(e -> e.trim().toLowerCase(Locale.ROOT))
+                .collect(Collectors.toSet());
+        this.gracePeriod = Duration.ofHours(gracePeriodHours);
+        this.scanLimiter = new RateLimiter(maxFilesPerSecond);
+        this.deleteLimiter = new RateLimiter(maxDeletesPerSecond);
+    }
+
+    @Scheduled(cron = "${image-gc.cron:0 15 5 * * *}")
+    public void scheduledRun() {
+        if (enabled) {
+            collect();
+        }
+    }
+
+    // ✅ Returns the number of files deleted (or that would be, in dry-run mode)
+    public int collect() {
+        if (directory == null) {
+            logger.warn("⚠️ Image GC has no upload directory configured, skipping");
+            return 0;
+        }
+        if (!running.compareAndSet(false, true)) {
+            logger.info("💡 Image GC already running, skipping");
+            return 0;
+        }
+        long started = System.currentTimeMillis();
+        int deleted = 0;
+        try {
+            // Loaded before the walk: an image referenced after this point is newer than the grace period
+            Integer roomCount = jdbcTemplate.queryForObject("select count(*) from rooms", Integer.class);
+            ImageNameSet referenced = new ImageNameSet(roomCount != null ? roomCount : 0);
+            jdbcTemplate.query("select image_url from rooms where image_url is not null",
+                    rs -> {
+                        referenced.add(rs.getString(1));
+                    });
+            Instant cutoff = Instant.now().minus(gracePeriod);
+
+            if (Files.isDirectory(directory)) {
+                deleted = collect(directory, referenced, cutoff);
+            }
+            logger.info("🧹 Image GC finished | referenced={} | {}={} | took={}ms", referenced.size(),
+                    dryRun ? "wouldDelete" : "deleted", deleted, System.currentTimeMillis() - started);
+        } catch (Exception e) {
+            logger.error("❌ Image GC failed after deleting {} files", deleted, e);
+        } finally {
+            running.set(false);
+        }
+        return deleted;
+    }
+
+    private int collect(Path directory, ImageNameSet referenced, Instant cutoff) throws IOException {
+        int scanned = 0;
+        int deleted = 0;
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+            for (Path file : entries) {
+                if (Thread.currentThread().isInterrupted()) {
+                    logger.warn("⚠️ Image GC interrupted in {}", directory);
+                    break;
+                }
+                String name = file.getFileName().toString();
+                // Name checks are free; only candidates cost a stat (and maybe a delete)
+                if (!isUpload(name) || referenced.contains(name)) {
+                    continue;
+                }
+                scanLimiter.acquire();
+                scanned++;
+                try {
+                    BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class,
+                            LinkOption.NOFOLLOW_LINKS);
+                    if (!attributes.isRegularFile() || attributes.lastModifiedTime().toInstant().isAfter(cutoff)) {
+                        continue;
+                    }
+                    if (dryRun) {
+                        logger.info("💡 Image GC would delete {}", file);
+                    } else {
+                        deleteLimiter.acquire();
+                        Files.deleteIfExists(file);
+                    }
+                    deleted++;
+                } catch (IOException e) {
+                    logger.warn("⚠️ Image GC could not remove {}", file, e);
+                }
+            }
+        }
+        logger.info("🧹 Image GC swept {} | candidates={} | {}={}", directory, scanned,
+                dryRun ? "wouldDelete" : "deleted", deleted);
+        return deleted;
+    }
+
+    // ✅ "<uuid>.<image extension>", as written by RoomService.addRoomWithFile
+    private boolean isUpload(String name) {
+        int dot = name.lastIndexOf('.');
+        return dot == 36 && UPLOAD_NAME.matcher(name.substring(0, dot)).matches()
+                && extensions.contains(name.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+
+    private static Path uploadDirectory(String directory) {
+        if (directory == null || directory.isBlank()) {
+            return null;
+        }
+        Path path = Paths.get(directory.trim()).toAbsolutePath().normalize();
+        for (Path part : path) {
+            if (part.toString().equals("src")) {
+                return null;
+            }
+        }
+        return path;
+    }
+}
@@ -0,0 +1,92 @@
+package com.nestly.server.services;
+
+// Set of file names stored as 64-bit hashes in one open-addressing long[] (8 bytes per name,
+// no String kept). A hash collision can only make an unreferenced file look referenced,
+// which keeps it: the safe direction for a garbage collector.
+public class ImageNameSet {
+
+    private long[] slots;
+    private int size;
+
+    public ImageNameSet(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedSize * 2) - 1) << 1;
+        this.slots = new long[capacity];
+    }
+
+    // Adds the file name of a URL or path such as "/images/abc.jpg"
+    public void add(String urlOrPath) {
+        String name = fileName(urlOrPath);
+        if (name.isEmpty()) {
+            return;
+        }
+        if ((size + 1) * 2 > slots.length) {
+            resize();
+        }
+        if (insert(slots, hash(name))) {
+            size++;
+        }
+    }
+
+    public boolean contains(String fileName) {
+        long h = hash(fileName);
+        int mask = slots.length - 1;
+        for (int i = (int) h & mask; slots[i] != 0; i = (i + 1) & mask) {
+            if (slots[i] == h) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    static String fileName(String urlOrPath) {
+        if (urlOrPath == null) {
+            return "";
+        }
+        String path = urlOrPath.trim();
+        int query = path.indexOf('?');
+        if (query >= 0) {
+            path = path.substring(0, query);
+        }
+        return path.substring(Math.max(path.lastIndexOf('/'), path.lastIndexOf('\\')) + 1);
+    }
+
+    private static boolean insert(long[] table, long h) {
+        int mask = table.length - 1;
+        int i = (int) h & mask;
+        while (table[i] != 0) {
+            if (table[i] == h) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        table[i] = h;
+        return true;
+    }
+
+    private void resize() {
+        long[] grown = new long[slots.length * 2];
+        for (long h : slots) {
+            if (h != 0) {
+                insert(grown, h);
+            }
+        }
+        slots = grown;
+    }
+
+    // FNV-1a over the chars, finished with a 64-bit mix; 0 is reserved for empty slots
+    private static long hash(String name) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < name.length(); i++) {
+            h ^= name.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h != 0 ? h : 1;
+    }
+}
@@ -0,0 +1,51 @@
+package com.nestly.server.services;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// In-process cache whose entries are dropped on every instance through CacheInvalidationBus.
+// A generation counter keeps a load that raced with an invalidation from storing its
+// possibly stale result. Misses (null) are never cached.
+public class LocalCache<V> {
+
+    private final Map<String, V> entries = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final int maxEntries;
+
+    public LocalCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public V get(String key, Supplier<V> loader) {
+        V cached = entries.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        long loadedAt = generation.get();
+        V loaded = loader.get();
+        if (loaded != null && entries.size() < maxEntries) {
+            entries.put(key, loaded);
+            // ✅ Checked after the put: an invalidation in between removes it again here
+            if (generation.get() != loadedAt) {
+                entries.remove(key, loaded);
+            }
+        }
+        return loaded;
+    }
+
+    public void invalidate(String key) {
+        generation.incrementAndGet();
+        entries.remove(key);
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,99 @@
+package com.nestly.server.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Room x night occupancy grid for one city and month.
+// A single query returns the city's rooms joined to their CONFIRMED stays overlapping the month.
+// Each room's month is one 64-bit word (bit d = night of day d + 1), so rasterizing a stay is
+// one mask OR and per-night counts walk only the set bits of each word.
+@Service
+public class OccupancyHeatmapService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OccupancyHeatmapService.class);
+
+    // Rooms without a stay in the month still come back once, with null dates
+    private static final String GRID_QUERY = "select r.id, r.name, b.check_in_date, b.check_out_date from rooms r "
+            + "left join bookings b on b.room_id = r.id and b.status = 'CONFIRMED' "
+            + "and b.check_in_date < ? and b.check_out_date > ? "
+            + "where r.city = ? order by r.id";
+
+    // occupied[i] holds roomIds[i]'s nights; nightCounts[d] is the number of rooms booked on day d + 1
+    public record Heatmap(String city, YearMonth month, int nights, List<Long> roomIds, List<String> roomNames,
+            long[] occupied, int[] nightCounts, long bookedNights, double occupancyRate) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public OccupancyHeatmapService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Transactional(readOnly = true)
+    public Heatmap build(String city, YearMonth month) {
+        long started = System.nanoTime();
+        LocalDate monthStart = month.atDay(1);
+        LocalDate monthEnd = month.plusMonths(1).atDay(1);
+        int nights = month.lengthOfMonth();
+
+        List<Long> roomIds = new ArrayList<>();
+        List<String> roomNames = new ArrayList<>();
+        long[][] occupied = { new long[64] };
+        jdbcTemplate.query(GRID_QUERY, rs -> {
+            long roomId = rs.getLong(1);
+            int last = roomIds.size() - 1;
+            if (last < 0 || roomIds.get(last) != roomId) {
+                roomIds.add(roomId);
+                roomNames.add(rs.getString(2));
+                last++;
+                if (last == occupied[0].length) {
+                    occupied[0] = Arrays.copyOf(occupied[0], last * 2);
+                }
+            }
+            Date checkIn = rs.getDate(3);
+            Date checkOut = rs.getDate(4);
+            if (checkIn != null && checkOut != null) {
+                occupied[0][last] |= nightMask(monthStart, monthEnd, checkIn.toLocalDate(), checkOut.toLocalDate());
+            }
+        }, Date.valueOf(monthEnd), Date.valueOf(monthStart), city);
+
+        long[] grid = Arrays.copyOf(occupied[0], roomIds.size());
+        int[] nightCounts = new int[nights];
+        long bookedNights = 0;
+        for (long word : grid) {
+            bookedNights += Long.bitCount(word);
+            for (long bits = word; bits != 0; bits &= bits - 1) {
+                nightCounts[Long.numberOfTrailingZeros(bits)]++;
+            }
+        }
+        long availableNights = (long) grid.length * nights;
+        double occupancyRate = availableNights > 0 ? (double) bookedNights / availableNights : 0;
+
+        logger.info("🗺️ Built occupancy heatmap | city={} | month={} | rooms={} | took={}ms", city, month,
+                grid.length, (System.nanoTime() - started) / 1_000_000);
+        return new Heatmap(city, month, nights, roomIds, roomNames, grid, nightCounts, bookedNights, occupancyRate);
+    }
+
+    // Bits for the nights of [checkIn, checkOut) that fall inside [monthStart, monthEnd)
+    static long nightMask(LocalDate monthStart, LocalDate monthEnd, LocalDate checkIn, LocalDate checkOut) {
+        LocalDate from = checkIn.isAfter(monthStart) ? checkIn : monthStart;
+        LocalDate to = checkOut.isBefore(monthEnd) ? checkOut : monthEnd;
+        int first = (int) ChronoUnit.DAYS.between(monthStart, from);
+        int count = (int) ChronoUnit.DAYS.between(from, to);
+        if (count <= 0) {
+            return 0;
+        }
+        return ((1L << count) - 1) << first;
+    }
+}
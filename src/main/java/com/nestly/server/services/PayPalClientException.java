@@ -0,0 +1,42 @@
+package com.nestly.server.services;
+
+// Failure of a PayPal HTTP call. statusCode is 0 when no HTTP response was received
+// (timeout, I/O error, bulkhead full or circuit open). issue is PayPal's error code from
+// the response body (details[0].issue, else name), null when there was none.
+public class PayPalClientException extends RuntimeException {
+
+    private final int statusCode;
+    private final String issue;
+
+    public PayPalClientException(String message, int statusCode) {
+        this(message, statusCode, null);
+    }
+
+    public PayPalClientException(String message, int statusCode, String issue) {
+        super(issue != null ? message + " (" + issue + ")" : message);
+        this.statusCode = statusCode;
+        this.issue = issue;
+    }
+
+    public PayPalClientException(String message, Throwable cause) {
+        super(message, cause);
+        this.statusCode = 0;
+        this.issue = null;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public String getIssue() {
+        return issue;
+    }
+
+    public boolean isClientError() {
+        return statusCode >= 400 && statusCode < 500;
+    }
+
+    public boolean isUnauthorized() {
+        return statusCode == 401;
+    }
+}
@@ -0,0 +1,229 @@
+package com.nestly.server.services;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// Dedicated HTTP client for PayPal. java.net.http.HttpClient keeps pooled keep-alive
+// (HTTP/2 where PayPal offers it) connections; every call is bounded by a request
+// timeout, a bulkhead on concurrent calls and a circuit breaker that fails fast
+// while PayPal is down.
+@Component
+public class PayPalHttpClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(PayPalHttpClient.class);
+
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {
+    };
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final Duration requestTimeout;
+    private final Semaphore bulkhead;
+    private final long bulkheadWaitMillis;
+    private final PayPalCircuitBreaker circuitBreaker;
+    private final Counter bulkheadRejections;
+    private final Counter circuitRejections;
+
+    public PayPalHttpClient(ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${paypal.http.connect-timeout-ms:2000}") long connectTimeoutMs,
+            @Value("${paypal.http.request-timeout-ms:5000}") long requestTimeoutMs,
+            @Value("${paypal.http.max-concurrent-calls:20}") int maxConcurrentCalls,
+            @Value("${paypal.http.bulkhead-wait-ms:100}") long bulkheadWaitMillis,
+            @Value("${paypal.circuit.window-size:20}") int circuitWindowSize,
+            @Value("${paypal.circuit.minimum-calls:10}") int circuitMinimumCalls,
+            @Value("${paypal.circuit.failure-rate-threshold:50}") int circuitFailureRateThreshold,
+            @Value("${paypal.circuit.open-duration-ms:30000}") long circuitOpenDurationMs,
+            @Value("${paypal.circuit.half-open-calls:3}") int circuitHalfOpenCalls) {
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .build();
+        this.requestTimeout = Duration.ofMillis(requestTimeoutMs);
+        this.bulkhead = new Semaphore(maxConcurrentCalls);
+        this.bulkheadWaitMillis = bulkheadWaitMillis;
+        this.circuitBreaker = new PayPalCircuitBreaker(circuitWindowSize, circuitMinimumCalls,
+                circuitFailureRateThreshold, circuitOpenDurationMs, circuitHalfOpenCalls);
+
+        // ✅ Metrics for each protection layer
+        Gauge.builder("paypal.client.bulkhead.in_use", bulkhead, b -> maxConcurrentCalls - b.availablePermits())
+                .description("PayPal calls currently holding a bulkhead permit")
+                .register(meterRegistry);
+        Gauge.builder("paypal.client.circuit.state", circuitBreaker, cb -> cb.getState().ordinal())
+                .description("0=closed, 1=open, 2=half-open")
+                .register(meterRegistry);
+        this.bulkheadRejections = Counter.builder("paypal.client.rejected")
+                .tag("reason", "bulkhead_full")
+                .register(meterRegistry);
+        this.circuitRejections = Counter.builder("paypal.client.rejected")
+                .tag("reason", "circuit_open")
+                .register(meterRegistry);
+    }
+
+    public Map<String, Object> postForm(String operation, String url, String clientId, String clientSecret,
+            String form) {
+        String credentials = Base64.getEncoder()
+                .encodeToString((clientId + ":" + clientSecret).getBytes(StandardCharsets.UTF_8));
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url))
+                .header("Authorization", "Basic " + credentials)
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form));
+        return execute(operation, request);
+    }
+
+    public Map<String, Object> postJson(String operation, String url, String accessToken, Object body) {
+        return postJson(operation, url, accessToken, body, null);
+    }
+
+    // ✅ With a PayPal-Request-Id, PayPal answers a retried POST with the original result
+    public Map<String, Object> postJson(String operation, String url, String accessToken, Object body,
+            String requestId) {
+        String json;
+        try {
+            json = body != null ? objectMapper.writeValueAsString(body) : "";
+        } catch (IOException e) {
+            throw new PayPalClientException("Failed to serialize PayPal request", e);
+        }
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url))
+                .header("Authorization", "Bearer " + accessToken)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json));
+        if (requestId != null) {
+            request.header("PayPal-Request-Id", requestId);
+        }
+        return execute(operation, request);
+    }
+
+    public Map<String, Object> get(String operation, String url, String accessToken) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url))
+                .header("Authorization", "Bearer " + accessToken)
+                .header("Content-Type", "application/json")
+                .GET();
+        return execute(operation, request);
+    }
+
+    public PayPalCircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    private Map<String, Object> execute(String operation, HttpRequest.Builder requestBuilder) {
+        if (!acquireBulkhead()) {
+            bulkheadRejections.increment();
+            throw new PayPalClientException("PayPal bulkhead full, rejecting " + operation, 0);
+        }
+        try {
+            if (!circuitBreaker.tryAcquire()) {
+                circuitRejections.increment();
+                throw new PayPalClientException("PayPal circuit open, rejecting " + operation, 0);
+            }
+            return send(operation, requestBuilder.timeout(requestTimeout).build());
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    private Map<String, Object> send(String operation, HttpRequest request) {
+        long start = System.nanoTime();
+        String outcome = "success";
+        try {
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            int status = response.statusCode();
+            if (status >= 500) {
+                outcome = "server_error";
+                circuitBreaker.onFailure();
+                throw new PayPalClientException("PayPal " + operation + " failed with HTTP " + status, status);
+            }
+            // 4xx means PayPal is up and answering, so it does not trip the breaker
+            circuitBreaker.onSuccess();
+            if (status >= 400) {
+                outcome = "client_error";
+                logger.warn("⚠️ PayPal {} returned HTTP {}: {}", operation, status, response.body());
+                throw new PayPalClientException("PayPal " + operation + " failed with HTTP " + status, status,
+                        issueOf(response.body()));
+            }
+            return parse(operation, response.body());
+        } catch (HttpTimeoutException e) {
+            outcome = "timeout";
+            circuitBreaker.onFailure();
+            throw new PayPalClientException("PayPal " + operation + " timed out", e);
+        } catch (IOException e) {
+            outcome = "io_error";
+            circuitBreaker.onFailure();
+            throw new PayPalClientException("PayPal " + operation + " I/O error", e);
+        } catch (InterruptedException e) {
+            outcome = "interrupted";
+            circuitBreaker.onFailure();
+            Thread.currentThread().interrupt();
+            throw new PayPalClientException("PayPal " + operation + " interrupted", e);
+        } finally {
+            Timer.builder("paypal.client.calls")
+                    .tag("operation", operation)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (!"success".equals(outcome)) {
+                Counter.builder("paypal.client.errors")
+                        .tag("operation", operation)
+                        .tag("outcome", outcome)
+                        .register(meterRegistry)
+                        .increment();
+            }
+        }
+    }
+
+    private Map<String, Object> parse(String operation, String body) {
+        if (body == null || body.isBlank()) {
+            return Map.of();
+        }
+        try {
+            return objectMapper.readValue(body, MAP_TYPE);
+        } catch (IOException e) {
+            throw new PayPalClientException("Unreadable PayPal " + operation + " response", e);
+        }
+    }
+
+    // PayPal error bodies: {"name": "UNPROCESSABLE_ENTITY", "details": [{"issue": "CAPTURE_FULLY_REFUNDED"}]}
+    private String issueOf(String body) {
+        try {
+            JsonNode error = objectMapper.readTree(body);
+            String issue = error.path("details").path(0).path("issue").asText(null);
+            return issue != null ? issue : error.path("name").asText(null);
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private boolean acquireBulkhead() {
+        try {
+            return bulkhead.tryAcquire(bulkheadWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -1,23 +1,24 @@
 package com.nestly.server.services;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.ParameterizedTypeReference;
-import org.springframework.http.*;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.HttpClientErrorException;
-import org.springframework.web.client.RestTemplate;
 
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Objects;
+import java.util.Set;
 
 @Service
 public class PayPalService {
 
     private static final Logger logger = LoggerFactory.getLogger(PayPalService.class);
 
+    private static final Set<String> REQUEST_IN_PROGRESS_ISSUES = Set.of("PREVIOUS_REQUEST_IN_PROGRESS",
+            "DUPLICATE_REQUEST_ID");
+
     @Value("${paypal.client.id}")
     private String clientId;
 
@@ -30,26 +31,64 @@ public class PayPalService {
     @Value("${paypal.currency:USD}")
     private String currency;
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    @Value("${paypal.token.expiry-skew-seconds:60}")
+    private long tokenExpirySkewSeconds;
+
+    @Value("${paypal.token.refresh-ahead-seconds:300}")
+    private long tokenRefreshAheadSeconds;
+
+    // Used when the token response carries no usable expires_in
+    @Value("${paypal.token.default-lifetime-seconds:3600}")
+    private long tokenDefaultLifetimeSeconds;
+
+    private final PayPalHttpClient httpClient;
+
+    private PayPalTokenCache tokenCache;
+
+    public PayPalService(PayPalHttpClient httpClient) {
+        this.httpClient = httpClient;
+    }
+
+    @PostConstruct
+    public void initTokenCache() {
+        tokenCache = new PayPalTokenCache(this::fetchAccessToken, tokenExpirySkewSeconds, tokenRefreshAheadSeconds);
+    }
+
+    @PreDestroy
+    public void shutdownTokenCache() {
+        tokenCache.shutdown();
+    }
 
+    // ✅ Cached token; PayPal is only contacted when it is missing or about to expire
     public String getAccessToken() {
+        return tokenCache.getToken();
+    }
+
+    // A 401 means PayPal revoked the token early; the next call fetches a fresh one
+    private void invalidateTokenIfRejected(Exception e) {
+        if (e instanceof PayPalClientException pce && pce.isUnauthorized()) {
+            tokenCache.invalidate();
+        }
+    }
+
+    private PayPalTokenCache.AccessToken fetchAccessToken() {
         try {
             logger.info("🔑 Requesting PayPal access token...");
             String url = baseUrl + "/v1/oauth2/token";
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setBasicAuth(clientId, clientSecret);
-            headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
-
-            HttpEntity<String> entity = new HttpEntity<>("grant_type=client_credentials", headers);
-
-            ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
-                    url, HttpMethod.POST, entity, new ParameterizedTypeReference<>() {
-                    });
-
-            Map<String, Object> body = Objects.requireNonNull(response.getBody());
-            logger.info("✅ PayPal access token retrieved");
-            return (String) body.get("access_token");
+            Map<String, Object> body = httpClient.postForm("token", url, clientId, clientSecret,
+                    "grant_type=client_credentials");
+            if (!(body.get("access_token") instanceof String accessToken) || accessToken.isBlank()) {
+                throw new IllegalStateException("PayPal token response has no access_token");
+            }
+            long expiresIn = body.get("expires_in") instanceof Number n ? n.longValue() : 0;
+            if (expiresIn <= 0) {
+                // Without a lifetime the cache would refetch on every call
+                logger.warn("⚠️ PayPal token response has no expires_in, assuming {}s", tokenDefaultLifetimeSeconds);
+                expiresIn = tokenDefaultLifetimeSeconds;
+            }
+            logger.info("✅ PayPal access token retrieved | expiresIn={}s", expiresIn);
+            return new PayPalTokenCache.AccessToken(accessToken, expiresIn);
         } catch (Exception e) {
             logger.error("❌ Failed to get PayPal access token", e);
             throw new RuntimeException("PayPal access token error");
@@ -57,20 +96,25 @@ public class PayPalService {
     }
 
     public Map<String, Object> createOrder(double amount) {
+        return createOrder(amount, null);
+    }
+
+    // customId travels with the capture, so webhooks can rebuild a booking the browser never submitted
+    public Map<String, Object> createOrder(double amount, String customId) {
         try {
             logger.info("🛒 Creating PayPal order for amount={}", amount);
             String url = baseUrl + "/v2/checkout/orders";
             String accessToken = getAccessToken();
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setBearerAuth(accessToken);
-            headers.setContentType(MediaType.APPLICATION_JSON);
+            Map<String, Object> purchaseUnit = new HashMap<>();
+            purchaseUnit.put("amount", Map.of("currency_code", currency, "value", String.format("%.2f", amount)));
+            if (customId != null) {
+                purchaseUnit.put("custom_id", customId);
+            }
 
             Map<String, Object> orderRequest = Map.of(
                     "intent", "CAPTURE",
-                    "purchase_units", new Object[] {
-                            Map.of("amount", Map.of("currency_code", currency, "value", String.format("%.2f", amount)))
-                    },
+                    "purchase_units", new Object[] { purchaseUnit },
                     "application_context", Map.of(
                             "return_url",
                             System.getenv("FRONTEND_URL") != null ? System.getenv("FRONTEND_URL") + "/success"
@@ -79,15 +123,12 @@ public class PayPalService {
                             System.getenv("FRONTEND_URL") != null ? System.getenv("FRONTEND_URL") + "/cancel"
                                     : "http://localhost:5173/cancel"));
 
-            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(orderRequest, headers);
-
-            ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
-                    url, HttpMethod.POST, entity, new ParameterizedTypeReference<>() {
-                    });
+            Map<String, Object> response = httpClient.postJson("create_order", url, accessToken, orderRequest);
 
             logger.info("✅ PayPal createOrder response received");
-            return Objects.requireNonNull(response.getBody());
+            return response;
         } catch (Exception e) {
+            invalidateTokenIfRejected(e);
             logger.error("❌ Failed to create PayPal order", e);
             throw new RuntimeException("PayPal create order error");
         }
@@ -99,17 +140,7 @@ public class PayPalService {
             String url = baseUrl + "/v2/checkout/orders/" + orderId + "/capture";
             String accessToken = getAccessToken();
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setBearerAuth(accessToken);
-            headers.setContentType(MediaType.APPLICATION_JSON);
-
-            HttpEntity<Void> entity = new HttpEntity<>(headers);
-
-            ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
-                    url, HttpMethod.POST, entity, new ParameterizedTypeReference<>() {
-                    });
-
-            Map<String, Object> body = Objects.requireNonNull(response.getBody());
+            Map<String, Object> body = httpClient.postJson("capture_order", url, accessToken, null);
             logger.info("✅ PayPal captureOrder response received");
 
             String captureId = null;
@@ -132,70 +163,111 @@ public class PayPalService {
 
             return captureId;
         } catch (Exception e) {
+            invalidateTokenIfRejected(e);
             logger.error("❌ Failed to capture PayPal order", e);
             throw new RuntimeException("PayPal capture order error");
         }
     }
 
-    public String refundPayment(String captureId, double amount) {
-        try {
-            logger.info("💰 Initiating refund for captureId={} amount={}", captureId, amount);
+    // ✅ Refund outcome; the id is kept so the status can be reconciled later
+    public static class RefundResult {
+        private final String refundId;
+        private final String status;
 
-            String accessToken = getAccessToken();
-            logger.info("🔑 PayPal access token retrieved");
+        public RefundResult(String refundId, String status) {
+            this.refundId = refundId;
+            this.status = status;
+        }
 
-            String url = "https://api-m.sandbox.paypal.com/v2/payments/captures/" + captureId + "/refund";
+        public String getRefundId() {
+            return refundId;
+        }
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setBearerAuth(accessToken);
-            headers.setContentType(MediaType.APPLICATION_JSON);
+        public String getStatus() {
+            return status;
+        }
+    }
 
-            Map<String, Object> body = new HashMap<>();
-            Map<String, String> amountMap = new HashMap<>();
-            amountMap.put("value", String.format("%.2f", amount));
-            amountMap.put("currency_code", "USD");
-            body.put("amount", amountMap);
+    public String refundPayment(String captureId, double amount) {
+        return refund(captureId, amount).getStatus();
+    }
 
-            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(body, headers);
+    public RefundResult refund(String captureId, double amount) {
+        return refund(captureId, amount, null);
+    }
 
-            ResponseEntity<Map> response = restTemplate.exchange(url, HttpMethod.POST, entity, Map.class);
+    // PayPal-Request-Id of a booking's refund: every send for the booking reuses it
+    public static String refundRequestId(Long bookingId) {
+        return "nestly-refund-booking-" + bookingId;
+    }
 
-            if (response.getStatusCode().is2xxSuccessful()) {
-                Map responseBody = response.getBody();
-                String refundId = (String) responseBody.get("id");
-                String status = (String) responseBody.get("status");
-                logger.info("✅ Final refund status for captureId={} refundId={} => {}", captureId, refundId, status);
-                return status; // <--- THIS IS IMPORTANT
-            } else {
-                logger.error("❌ PayPal refund failed. Response: {}", response);
-                return "FAILED";
+    // Same requestId = same refund: safe to retry after a crash or timeout.
+    // FAILED only when PayPal definitively rejected the refund; anything that may succeed on a
+    // resend (expired token, timeout, rate limit, request still in progress) is thrown, so
+    // callers leave the booking QUEUED and resend it later with the same request id.
+    public RefundResult refund(String captureId, double amount, String requestId) {
+        logger.info("💰 Initiating refund for captureId={} amount={}", captureId, amount);
+        try {
+            try {
+                return postRefund(captureId, amount, requestId);
+            } catch (PayPalClientException e) {
+                if (!e.isUnauthorized()) {
+                    throw e;
+                }
+                // Expired or revoked token: one retry with a fresh one
+                tokenCache.invalidate();
+                return postRefund(captureId, amount, requestId);
             }
-        } catch (HttpClientErrorException e) {
-            logger.error("❌ PayPal refund failed for captureId={}", captureId, e);
-            return "FAILED";
+        } catch (PayPalClientException e) {
+            if (!isRefundRejection(e)) {
+                invalidateTokenIfRejected(e);
+                throw e;
+            }
+            logger.error("❌ PayPal rejected refund for captureId={}", captureId, e);
+            return new RefundResult(null, "FAILED");
         }
     }
 
-    private String checkRefundStatus(String refundId) {
-        try {
-            String url = baseUrl + "/v2/payments/refunds/" + refundId;
-            String accessToken = getAccessToken();
+    private RefundResult postRefund(String captureId, double amount, String requestId) {
+        String accessToken = getAccessToken();
+        String url = baseUrl + "/v2/payments/captures/" + captureId + "/refund";
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setBearerAuth(accessToken);
-            headers.setContentType(MediaType.APPLICATION_JSON);
+        Map<String, Object> body = new HashMap<>();
+        Map<String, String> amountMap = new HashMap<>();
+        amountMap.put("value", String.format("%.2f", amount));
+        amountMap.put("currency_code", currency);
+        body.put("amount", amountMap);
 
-            HttpEntity<Void> entity = new HttpEntity<>(headers);
+        Map<String, Object> responseBody = httpClient.postJson("refund", url, accessToken, body, requestId);
 
-            ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
-                    url, HttpMethod.GET, entity, new ParameterizedTypeReference<>() {
-                    });
+        String refundId = (String) responseBody.get("id");
+        String status = (String) responseBody.get("status");
+        logger.info("✅ Final refund status for captureId={} refundId={} => {}", captureId, refundId, status);
+        return new RefundResult(refundId, status);
+    }
+
+    // ✅ Bad request, unknown capture, or a business rule (e.g. CAPTURE_FULLY_REFUNDED);
+    // a 422 about the request id itself means an earlier send is still being processed
+    static boolean isRefundRejection(PayPalClientException e) {
+        return switch (e.getStatusCode()) {
+            case 400, 404 -> true;
+            case 422 -> e.getIssue() == null || !REQUEST_IN_PROGRESS_ISSUES.contains(e.getIssue());
+            default -> false;
+        };
+    }
+
+    // Returns PENDING when PayPal cannot be reached so callers simply retry later
+    public String checkRefundStatus(String refundId) {
+        try {
+            String url = baseUrl + "/v2/payments/refunds/" + refundId;
+            String accessToken = getAccessToken();
 
-            Map<String, Object> body = response.getBody();
+            Map<String, Object> body = httpClient.get("refund_status", url, accessToken);
             if (body != null && body.get("status") != null) {
                 return (String) body.get("status");
             }
         } catch (Exception e) {
+            invalidateTokenIfRejected(e);
             logger.error("❌ Failed to check refund status for refundId=" + refundId, e);
         }
         return "PENDING";
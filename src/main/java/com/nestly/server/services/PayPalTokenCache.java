@@ -0,0 +1,144 @@
+package com.nestly.server.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+// Caches the PayPal OAuth access token until shortly before it expires.
+// Concurrent callers that find the token expired share a single fetch, and a
+// background refresh replaces the token before request threads ever see it expire.
+public class PayPalTokenCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(PayPalTokenCache.class);
+
+    private static final long RETRY_DELAY_MILLIS = 30_000;
+
+    // ✅ Token value plus the absolute expiry reported by PayPal (expires_in)
+    public static final class AccessToken {
+        private final String value;
+        private final long expiresAtMillis;
+
+        public AccessToken(String value, long expiresInSeconds) {
+            this.value = value;
+            this.expiresAtMillis = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(expiresInSeconds);
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public long getExpiresAtMillis() {
+            return expiresAtMillis;
+        }
+    }
+
+    private final Supplier<AccessToken> fetcher;
+    private final long expirySkewMillis;
+    private final long refreshAheadMillis;
+    private final AtomicReference<CompletableFuture<AccessToken>> inFlight = new AtomicReference<>();
+    private final ScheduledExecutorService refresher;
+
+    private volatile AccessToken current;
+    private volatile ScheduledFuture<?> scheduledRefresh;
+
+    public PayPalTokenCache(Supplier<AccessToken> fetcher, long expirySkewSeconds, long refreshAheadSeconds) {
+        this.fetcher = fetcher;
+        this.expirySkewMillis = TimeUnit.SECONDS.toMillis(expirySkewSeconds);
+        this.refreshAheadMillis = TimeUnit.SECONDS.toMillis(Math.max(refreshAheadSeconds, expirySkewSeconds));
+        this.refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "paypal-token-refresh");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public String getToken() {
+        AccessToken token = current;
+        if (isUsable(token)) {
+            return token.getValue();
+        }
+        return refresh(false).getValue();
+    }
+
+    private boolean isUsable(AccessToken token) {
+        return token != null && System.currentTimeMillis() < token.getExpiresAtMillis() - expirySkewMillis;
+    }
+
+    // Drops the cached token, e.g. after PayPal rejected it with a 401
+    public void invalidate() {
+        current = null;
+    }
+
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    // ✅ Single-flight: the first caller fetches, everyone else waits on the same future.
+    // proactive = background refresh, which replaces a token that is still usable.
+    private AccessToken refresh(boolean proactive) {
+        CompletableFuture<AccessToken> mine = new CompletableFuture<>();
+        CompletableFuture<AccessToken> existing = inFlight.compareAndExchange(null, mine);
+        if (existing != null) {
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException re ? re : e;
+            }
+        }
+
+        try {
+            // A fetch that finished between our expiry check and the CAS already did the work
+            AccessToken cached = current;
+            if (!proactive && isUsable(cached)) {
+                mine.complete(cached);
+                return cached;
+            }
+            AccessToken fetched = fetcher.get();
+            current = fetched;
+            mine.complete(fetched);
+            scheduleRefresh(fetched);
+            return fetched;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.set(null);
+        }
+    }
+
+    private void scheduleRefresh(AccessToken token) {
+        long lifetime = token.getExpiresAtMillis() - System.currentTimeMillis();
+        long delay = lifetime - refreshAheadMillis;
+        // Short-lived tokens (e.g. from a stub) are refreshed halfway instead of in a tight loop
+        scheduleRefreshIn(delay > 0 ? delay : Math.max(lifetime / 2, 1_000));
+    }
+
+    private void scheduleRefreshIn(long delayMillis) {
+        if (refresher.isShutdown()) {
+            return;
+        }
+        // Only the latest token's refresh stays scheduled
+        ScheduledFuture<?> previous = scheduledRefresh;
+        if (previous != null) {
+            previous.cancel(false);
+        }
+        scheduledRefresh = refresher.schedule(() -> {
+            try {
+                logger.debug("🔄 Proactively refreshing PayPal access token");
+                refresh(true);
+            } catch (RuntimeException e) {
+                // The current token is still valid for a while; request threads fall back to a synchronous fetch
+                logger.warn("⚠️ Background PayPal token refresh failed, retrying in {}ms", RETRY_DELAY_MILLIS);
+                scheduleRefreshIn(RETRY_DELAY_MILLIS);
+            }
+        }, delayMillis, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,232 @@
+package com.nestly.server.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nestly.server.models.PayPalWebhookEvent;
+import com.nestly.server.repositories.PayPalWebhookEventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+
+// PayPal webhook pipeline.
+// The request thread only verifies the signature and stores the raw event; a scheduled
+// consumer later deduplicates by event id and applies events to bookings in batches.
+// Every instance runs the consumer: a batch is claimed (RECEIVED -> PROCESSING) by one
+// atomic UPDATE first, so an event is only ever applied by the instance that claimed it.
+@Service
+public class PayPalWebhookService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PayPalWebhookService.class);
+
+    public static final String CAPTURE_COMPLETED = "PAYMENT.CAPTURE.COMPLETED";
+    public static final String CAPTURE_REFUNDED = "PAYMENT.CAPTURE.REFUNDED";
+    public static final String CAPTURE_REVERSED = "PAYMENT.CAPTURE.REVERSED";
+
+    private static final String BOOKING_REFERENCE_PREFIX = "booking:";
+
+    public enum IngestResult {
+        ACCEPTED, DUPLICATE, INVALID_SIGNATURE, MALFORMED, BUSY
+    }
+
+    private final PayPalWebhookEventRepository eventRepository;
+    private final BookingService bookingService;
+    private final PayPalWebhookVerifier verifier;
+    private final ObjectMapper objectMapper;
+    private final Semaphore ingestPermits;
+    private final int batchSize;
+    private final long claimLeaseMs;
+
+    public PayPalWebhookService(PayPalWebhookEventRepository eventRepository,
+            BookingService bookingService,
+            PayPalWebhookVerifier verifier,
+            ObjectMapper objectMapper,
+            @Value("${paypal.webhook.max-concurrent-requests:4}") int maxConcurrentRequests,
+            @Value("${paypal.webhook.batch-size:200}") int batchSize,
+            @Value("${paypal.webhook.claim-lease-ms:300000}") long claimLeaseMs) {
+        this.eventRepository = eventRepository;
+        this.bookingService = bookingService;
+        this.verifier = verifier;
+        this.objectMapper = objectMapper;
+        this.ingestPermits = new Semaphore(maxConcurrentRequests);
+        this.batchSize = batchSize;
+        this.claimLeaseMs = claimLeaseMs;
+    }
+
+    // ✅ Reference stored in the order's custom_id: booking:{userId}:{roomId}:{checkIn}:{checkOut}
+    public static String bookingReference(Long userId, Long roomId, String checkInDate, String checkOutDate) {
+        return BOOKING_REFERENCE_PREFIX + userId + ":" + roomId + ":" + checkInDate + ":" + checkOutDate;
+    }
+
+    // Request thread: signature check + one INSERT. A webhook burst can only hold a few
+    // request threads; the rest get BUSY (503) and PayPal redelivers them later.
+    public IngestResult ingest(byte[] body, String transmissionId, String transmissionTime,
+            String transmissionSig, String certUrl, String authAlgo) {
+        if (!ingestPermits.tryAcquire()) {
+            return IngestResult.BUSY;
+        }
+        try {
+            if (!verifier.isValid(body, transmissionId, transmissionTime, transmissionSig, certUrl, authAlgo)) {
+                return IngestResult.INVALID_SIGNATURE;
+            }
+            JsonNode root = objectMapper.readTree(body);
+            String eventId = root.path("id").asText(null);
+            if (eventId == null) {
+                return IngestResult.MALFORMED;
+            }
+            eventRepository.save(PayPalWebhookEvent.builder()
+                    .eventId(eventId)
+                    .eventType(root.path("event_type").asText(null))
+                    .payload(new String(body, StandardCharsets.UTF_8))
+                    .status("RECEIVED")
+                    .receivedAt(LocalDateTime.now())
+                    .build());
+            return IngestResult.ACCEPTED;
+        } catch (DataIntegrityViolationException duplicate) {
+            // Unique event_id: PayPal redelivered an event we already stored
+            return IngestResult.DUPLICATE;
+        } catch (java.io.IOException e) {
+            return IngestResult.MALFORMED;
+        } finally {
+            ingestPermits.release();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${paypal.webhook.poll-interval-ms:2000}")
+    public void processPending() {
+        LocalDateTime staleBefore = LocalDateTime.now().minus(Duration.ofMillis(claimLeaseMs));
+        int released = eventRepository.releaseStaleClaims(staleBefore);
+        if (released > 0) {
+            logger.warn("⚠️ Released stale PayPal webhook claims | count={}", released);
+        }
+        List<PayPalWebhookEvent> candidates;
+        do {
+            candidates = eventRepository.findByStatusOrderByIdAsc("RECEIVED", PageRequest.of(0, batchSize));
+            if (candidates.isEmpty()) {
+                break;
+            }
+            String claimId = UUID.randomUUID().toString();
+            List<Long> ids = candidates.stream().map(PayPalWebhookEvent::getId).toList();
+            // Events another instance claimed in the meantime are simply not ours
+            if (eventRepository.claim(ids, claimId, LocalDateTime.now()) > 0) {
+                processBatch(eventRepository.findByIdInAndClaimedByOrderByIdAsc(ids, claimId));
+            }
+        } while (candidates.size() == batchSize);
+    }
+
+    private void processBatch(List<PayPalWebhookEvent> batch) {
+        Set<String> seenEventIds = new HashSet<>();
+        Set<String> refundedCaptures = new HashSet<>();
+        Set<String> reversedCaptures = new HashSet<>();
+        List<Long> processed = new ArrayList<>();
+        List<Long> ignored = new ArrayList<>();
+
+        for (PayPalWebhookEvent event : batch) {
+            if (!seenEventIds.add(event.getEventId())) {
+                ignored.add(event.getId());
+                continue;
+            }
+            try {
+                JsonNode resource = objectMapper.readTree(event.getPayload()).path("resource");
+                String type = event.getEventType() != null ? event.getEventType() : "";
+                switch (type) {
+                    case CAPTURE_COMPLETED:
+                        applyCaptureCompleted(resource);
+                        processed.add(event.getId());
+                        break;
+                    case CAPTURE_REFUNDED:
+                        addCaptureId(resource, refundedCaptures);
+                        processed.add(event.getId());
+                        break;
+                    case CAPTURE_REVERSED:
+                        addCaptureId(resource, reversedCaptures);
+                        processed.add(event.getId());
+                        break;
+                    default:
+                        ignored.add(event.getId());
+                }
+            } catch (Exception e) {
+                logger.error("❌ Failed to apply PayPal webhook eventId={}", event.getEventId(), e);
+                event.setStatus("FAILED");
+                String message = String.valueOf(e.getMessage());
+                event.setError(message.length() > 1000 ? message.substring(0, 1000) : message);
+                event.setProcessedAt(LocalDateTime.now());
+                eventRepository.save(event);
+            }
+        }
+
+        // Refunds and reversals are applied as one UPDATE each for the whole batch
+        if (!refundedCaptures.isEmpty()) {
+            bookingService.cancelByCaptureIds(refundedCaptures, "COMPLETED");
+        }
+        if (!reversedCaptures.isEmpty()) {
+            bookingService.cancelByCaptureIds(reversedCaptures, "REVERSED");
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        if (!processed.isEmpty()) {
+            eventRepository.markProcessed(processed, "PROCESSED", now);
+        }
+        if (!ignored.isEmpty()) {
+            eventRepository.markProcessed(ignored, "IGNORED", now);
+        }
+        logger.info("📬 Applied PayPal webhooks | processed={} | ignored={} | refunds={} | reversals={}",
+                processed.size(), ignored.size(), refundedCaptures.size(), reversedCaptures.size());
+    }
+
+    // A capture whose browser never called /api/bookings/create still becomes a booking
+    private void applyCaptureCompleted(JsonNode capture) {
+        String captureId = capture.path("id").asText(null);
+        String reference = capture.path("custom_id").asText("");
+        if (captureId == null || !reference.startsWith(BOOKING_REFERENCE_PREFIX)) {
+            return;
+        }
+        if (bookingService.getBookingByCaptureId(captureId).isPresent()) {
+            return;
+        }
+        String[] parts = reference.substring(BOOKING_REFERENCE_PREFIX.length()).split(":");
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("Unrecognised booking reference: " + reference);
+        }
+        double amount = capture.path("amount").path("value").asDouble();
+        Long userId = Long.valueOf(parts[0]);
+        Long roomId = Long.valueOf(parts[1]);
+        try {
+            bookingService.createBooking(userId, roomId, parts[2], parts[3], captureId, amount);
+            logger.info("✅ Created booking from PayPal webhook for orphaned captureId={}", captureId);
+        } catch (BookingConflictException conflict) {
+            // The guest was charged but the stay was taken meanwhile: refund instead of failing the event
+            bookingService.refundUnbookableCapture(userId, roomId, parts[2], parts[3], captureId, amount,
+                    conflict.getMessage());
+        }
+    }
+
+    // Refund resources link back to their capture via the "up" link
+    private void addCaptureId(JsonNode resource, Set<String> captureIds) {
+        for (JsonNode link : resource.path("links")) {
+            if ("up".equals(link.path("rel").asText())) {
+                String href = link.path("href").asText();
+                captureIds.add(href.substring(href.lastIndexOf('/') + 1));
+                return;
+            }
+        }
+        // Reversal events carry the capture itself as the resource
+        String id = resource.path("id").asText(null);
+        if (id != null) {
+            captureIds.add(id);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.nestly.server.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.Signature;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+// Verifies PayPal webhook signatures locally instead of calling
+// /v1/notifications/verify-webhook-signature for every delivery.
+// PayPal signs "transmissionId|transmissionTime|webhookId|crc32(body)" with the
+// certificate referenced by PAYPAL-CERT-URL; certificates are cached per URL.
+@Component
+public class PayPalWebhookVerifier {
+
+    private static final Logger logger = LoggerFactory.getLogger(PayPalWebhookVerifier.class);
+
+    private final boolean enabled;
+    private final String webhookId;
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(2))
+            .build();
+    private final Map<String, CompletableFuture<X509Certificate>> certificates = new ConcurrentHashMap<>();
+
+    public PayPalWebhookVerifier(@Value("${paypal.webhook.verify-signatures:true}") boolean enabled,
+            @Value("${paypal.webhook.id:}") String webhookId) {
+        this.enabled = enabled;
+        this.webhookId = webhookId;
+    }
+
+    public boolean isValid(byte[] body, String transmissionId, String transmissionTime,
+            String transmissionSig, String certUrl, String authAlgo) {
+        if (!enabled) {
+            return true;
+        }
+        if (webhookId.isEmpty() || transmissionId == null || transmissionTime == null
+                || transmissionSig == null || certUrl == null) {
+            return false;
+        }
+        try {
+            CRC32 crc = new CRC32();
+            crc.update(body);
+            String message = transmissionId + "|" + transmissionTime + "|" + webhookId + "|" + crc.getValue();
+
+            Signature signature = Signature.getInstance(authAlgo != null ? authAlgo : "SHA256withRSA");
+            signature.initVerify(certificate(certUrl));
+            signature.update(message.getBytes(StandardCharsets.UTF_8));
+            return signature.verify(Base64.getDecoder().decode(transmissionSig));
+        } catch (Exception e) {
+            logger.warn("⚠️ PayPal webhook signature check failed: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private X509Certificate certificate(String certUrl) {
+        URI uri = URI.create(certUrl);
+        // Only trust certificates served by PayPal itself
+        if (!"https".equals(uri.getScheme()) || uri.getHost() == null || !uri.getHost().endsWith(".paypal.com")) {
+            throw new IllegalArgumentException("Untrusted PayPal cert URL: " + certUrl);
+        }
+        // Not computeIfAbsent: it holds a map lock for the whole download, which blocks other
+        // URLs in the same bin and pins virtual threads. The first caller downloads, others wait.
+        CompletableFuture<X509Certificate> pending = certificates.get(certUrl);
+        if (pending == null) {
+            CompletableFuture<X509Certificate> mine = new CompletableFuture<>();
+            pending = certificates.putIfAbsent(certUrl, mine);
+            if (pending == null) {
+                try {
+                    mine.complete(download(certUrl));
+                } catch (RuntimeException e) {
+                    certificates.remove(certUrl, mine); // let the next delivery retry
+                    mine.completeExceptionally(e);
+                }
+                pending = mine;
+            }
+        }
+        return pending.join();
+    }
+
+    private X509Certificate download(String certUrl) {
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(certUrl))
+                    .timeout(Duration.ofSeconds(5))
+                    .GET()
+                    .build();
+            byte[] pem = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray()).body();
+            X509Certificate certificate = (X509Certificate) CertificateFactory.getInstance("X.509")
+                    .generateCertificate(new ByteArrayInputStream(pem));
+            certificate.checkValidity();
+            return certificate;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while fetching PayPal certificate", e);
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to load PayPal certificate from " + certUrl, e);
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.nestly.server.services;
+
+import com.nestly.server.repositories.BookingRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Settles refunds that PayPal reported as PENDING, and resends QUEUED refunds whose send
+// after the cancellation never completed (same PayPal-Request-Id, so never a second refund).
+// Bookings are streamed in id order with keyset paging, each chunk's refund ids are
+// looked up concurrently (bounded thread count + PayPal rate limit), and the changed
+// statuses are written back with one bulk update per status.
+@Service
+public class RefundReconciliationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefundReconciliationService.class);
+
+    private static final Set<String> NON_TERMINAL_STATUSES = Set.of("PENDING");
+
+    private final BookingRepository bookingRepository;
+    private final PayPalService payPalService;
+    private final boolean enabled;
+    private final int chunkSize;
+    private final AsyncTaskExecutor lookupExecutor;
+    private final ExecutorService lookupPool; // null in virtual-thread mode
+    private final RateLimiter rateLimiter;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public RefundReconciliationService(BookingRepository bookingRepository,
+            PayPalService payPalService,
+            @Value("${refund-reconciliation.enabled:true}") boolean enabled,
+            @Value("${refund-reconciliation.chunk-size:500}") int chunkSize,
+            @Value("${refund-reconciliation.concurrency:8}") int concurrency,
+            @Value("${refund-reconciliation.max-requests-per-second:20}") double maxRequestsPerSecond,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.bookingRepository = bookingRepository;
+        this.payPalService = payPalService;
+        this.enabled = enabled;
+        this.chunkSize = chunkSize;
+        // Either way, at most `concurrency` lookups are in flight
+        if (virtualThreads && Runtime.version().feature() >= 21) {
+            // One virtual thread per lookup, bounded by the executor's concurrency limit
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("refund-reconciliation-");
+            executor.setVirtualThreads(true);
+            executor.setConcurrencyLimit(concurrency);
+            this.lookupExecutor = executor;
+            this.lookupPool = null;
+        } else {
+            // The pool size is the permit count
+            this.lookupPool = Executors.newFixedThreadPool(concurrency, r -> {
+                Thread t = new Thread(r, "refund-reconciliation");
+                t.setDaemon(true);
+                return t;
+            });
+            this.lookupExecutor = new TaskExecutorAdapter(lookupPool);
+        }
+        this.rateLimiter = new RateLimiter(maxRequestsPerSecond);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (lookupPool != null) {
+            lookupPool.shutdownNow();
+        }
+    }
+
+    @Scheduled(initialDelayString = "${refund-reconciliation.initial-delay-ms:60000}",
+            fixedDelayString = "${refund-reconciliation.interval-ms:600000}")
+    public void scheduledRun() {
+        if (enabled) {
+            reconcile();
+        }
+    }
+
+    // ✅ Returns the number of bookings whose refund status changed
+    public int reconcile() {
+        if (!running.compareAndSet(false, true)) {
+            logger.info("💡 Refund reconciliation already running, skipping");
+            return 0;
+        }
+        long started = System.currentTimeMillis();
+        int scanned = 0;
+        int updated = 0;
+        try {
+            updated += resendQueued();
+            long afterId = 0;
+            while (true) {
+                List<BookingRepository.PendingRefund> chunk = bookingRepository.findPendingRefunds(
+                        NON_TERMINAL_STATUSES, afterId, PageRequest.of(0, chunkSize));
+                if (chunk.isEmpty()) {
+                    break;
+                }
+                scanned += chunk.size();
+                updated += reconcileChunk(chunk);
+                afterId = chunk.get(chunk.size() - 1).getId();
+            }
+            logger.info("✅ Refund reconciliation finished | scanned={} | updated={} | took={}ms",
+                    scanned, updated, System.currentTimeMillis() - started);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("⚠️ Refund reconciliation interrupted after scanning {} bookings", scanned);
+        } catch (Exception e) {
+            logger.error("❌ Refund reconciliation failed after scanning {} bookings", scanned, e);
+        } finally {
+            running.set(false);
+        }
+        return updated;
+    }
+
+    private int resendQueued() throws InterruptedException {
+        int sent = 0;
+        long afterId = 0;
+        while (true) {
+            List<BookingRepository.QueuedRefund> chunk = bookingRepository.findAllQueuedRefunds(afterId,
+                    PageRequest.of(0, chunkSize));
+            if (chunk.isEmpty()) {
+                break;
+            }
+            List<Future<Integer>> sends = new ArrayList<>(chunk.size());
+            for (BookingRepository.QueuedRefund row : chunk) {
+                sends.add(lookupExecutor.submit(() -> {
+                    rateLimiter.acquire();
+                    PayPalService.RefundResult refund = payPalService.refund(row.getPaypalCaptureId(),
+                            row.getAmount() != null ? row.getAmount() : 0,
+                            PayPalService.refundRequestId(row.getId()));
+                    String status = refund.getStatus() != null ? refund.getStatus() : "FAILED";
+                    return bookingRepository.recordQueuedRefund(row.getId(), status, refund.getRefundId());
+                }));
+            }
+            for (int i = 0; i < chunk.size(); i++) {
+                try {
+                    sent += sends.get(i).get();
+                } catch (ExecutionException e) {
+                    logger.warn("⚠️ Queued refund resend failed for bookingId={}", chunk.get(i).getId(),
+                            e.getCause());
+                }
+            }
+            afterId = chunk.get(chunk.size() - 1).getId();
+        }
+        if (sent > 0) {
+            logger.info("🔁 Resent queued refunds | count={}", sent);
+        }
+        return sent;
+    }
+
+    private int reconcileChunk(List<BookingRepository.PendingRefund> chunk) throws InterruptedException {
+        List<Future<String>> lookups = new ArrayList<>(chunk.size());
+        for (BookingRepository.PendingRefund row : chunk) {
+            lookups.add(lookupExecutor.submit(() -> {
+                rateLimiter.acquire();
+                return payPalService.checkRefundStatus(row.getRefundId());
+            }));
+        }
+
+        // Group changed bookings by their new status so each status is one UPDATE
+        Map<String, List<Long>> idsByStatus = new HashMap<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            String status;
+            try {
+                status = lookups.get(i).get();
+            } catch (ExecutionException e) {
+                logger.warn("⚠️ Refund lookup failed for bookingId={}", chunk.get(i).getId(), e.getCause());
+                continue;
+            }
+            if (status != null && !NON_TERMINAL_STATUSES.contains(status)) {
+                idsByStatus.computeIfAbsent(status, s -> new ArrayList<>()).add(chunk.get(i).getId());
+            }
+        }
+
+        int updated = 0;
+        for (Map.Entry<String, List<Long>> entry : idsByStatus.entrySet()) {
+            updated += bookingRepository.updateRefundStatus(entry.getValue(), entry.getKey());
+        }
+        return updated;
+    }
+}
@@ -0,0 +1,256 @@
+package com.nestly.server.services;
+
+import com.nestly.server.models.Booking;
+import com.nestly.server.models.Room;
+import com.nestly.server.models.RoomRetirement;
+import com.nestly.server.repositories.BookingRepository;
+import com.nestly.server.repositories.RoomRepository;
+import com.nestly.server.repositories.RoomRetirementRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Admin "retire room".
+// One transaction cancels every future booking of the room (rollups, calendars and waitlist
+// kept in step), marks paid ones refund_status = QUEUED and takes the room off sale. The
+// refunds are then sent in parallel (pool size = permit count, plus a PayPal rate limit).
+// Each refund carries a PayPal-Request-Id derived from the booking, so an interrupted
+// retirement is simply resumed: the scheduled job picks up rooms whose lease went stale and
+// sends whatever is still QUEUED, without ever refunding a booking twice.
+@Service
+public class RoomRetirementService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoomRetirementService.class);
+
+    public record Progress(Long roomId, String status, int cancelledBookings, int refundsRequested,
+            long refundsRemaining, LocalDateTime requestedAt, LocalDateTime completedAt) {
+    }
+
+    private final RoomRepository roomRepository;
+    private final BookingRepository bookingRepository;
+    private final RoomRetirementRepository retirementRepository;
+    private final BookingRollupService rollupService;
+    private final WaitlistService waitlistService;
+    private final ChangeVersionService changeVersions;
+    private final CacheInvalidationBus invalidationBus;
+    private final RoomSuggestService suggestService;
+    private final RoomSimilarityService similarityService;
+    private final PayPalService payPalService;
+    private final ExecutorService coordinator;
+    private final ExecutorService refundPool;
+    private final RateLimiter rateLimiter;
+    private final Set<Long> dispatching = ConcurrentHashMap.newKeySet();
+    private final int pageSize;
+    private final long leaseMs;
+
+    public RoomRetirementService(RoomRepository roomRepository,
+            BookingRepository bookingRepository,
+            RoomRetirementRepository retirementRepository,
+            BookingRollupService rollupService,
+            WaitlistService waitlistService,
+            ChangeVersionService changeVersions,
+            CacheInvalidationBus invalidationBus,
+            RoomSuggestService suggestService,
+            RoomSimilarityService similarityService,
+            PayPalService payPalService,
+            @Value("${room-retirement.concurrency:16}") int concurrency,
+            @Value("${room-retirement.max-requests-per-second:50}") double maxRequestsPerSecond,
+            @Value("${room-retirement.page-size:200}") int pageSize,
+            @Value("${room-retirement.lease-ms:120000}") long leaseMs) {
+        this.roomRepository = roomRepository;
+        this.bookingRepository = bookingRepository;
+        this.retirementRepository = retirementRepository;
+        this.rollupService = rollupService;
+        this.waitlistService = waitlistService;
+        this.changeVersions = changeVersions;
+        this.invalidationBus = invalidationBus;
+        this.suggestService = suggestService;
+        this.similarityService = similarityService;
+        this.payPalService = payPalService;
+        // One thread walks the queued bookings; the pool size is the refund permit count
+        this.coordinator = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "room-retirement");
+            t.setDaemon(true);
+            return t;
+        });
+        this.refundPool = Executors.newFixedThreadPool(concurrency, r -> {
+            Thread t = new Thread(r, "room-retirement-refund");
+            t.setDaemon(true);
+            return t;
+        });
+        this.rateLimiter = new RateLimiter(maxRequestsPerSecond);
+        this.pageSize = pageSize;
+        this.leaseMs = leaseMs;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        coordinator.shutdownNow();
+        refundPool.shutdownNow();
+    }
+
+    // ✅ Idempotent: retiring a retired room returns its progress
+    @Transactional
+    public Progress retire(Long roomId) {
+        Room room = roomRepository.findByIdForUpdate(roomId)
+                .orElseThrow(() -> new RuntimeException("Room not found for ID=" + roomId));
+        var existing = retirementRepository.findByRoomId(roomId);
+        if (existing.isPresent()) {
+            return progress(existing.get());
+        }
+
+        List<Booking> cancelled = bookingRepository.findConfirmedFrom(roomId, LocalDate.now());
+        List<Long> ids = new ArrayList<>(cancelled.size());
+        int refunds = 0;
+        for (Booking booking : cancelled) {
+            rollupService.recordCancelled(booking);
+            ids.add(booking.getId());
+            if (booking.getPaypalCaptureId() != null) {
+                refunds++;
+            }
+        }
+        if (!ids.isEmpty()) {
+            bookingRepository.cancelForRetirement(ids);
+            changeVersions.bump(ChangeVersionService.roomBookings(roomId));
+        }
+        waitlistService.roomRetired(roomId);
+
+        room.setAvailable(false);
+        room.setFeatured(false);
+        roomRepository.save(room);
+        changeVersions.bump(ChangeVersionService.ROOMS);
+        changeVersions.bump(ChangeVersionService.room(roomId));
+        invalidationBus.publishAll(RoomService.ROOM_LIST_CACHE);
+        invalidationBus.publishAll(RoomService.ROOM_CACHE);
+        // Off sale: dropped from autocomplete and from other rooms' "similar" lists
+        suggestService.roomRemoved(roomId);
+        similarityService.roomRemoved(roomId);
+
+        LocalDateTime now = LocalDateTime.now();
+        RoomRetirement retirement = retirementRepository.save(RoomRetirement.builder()
+                .roomId(roomId)
+                .status(refunds > 0 ? "REFUNDING" : "COMPLETED")
+                .cancelledBookings(ids.size())
+                .refundsRequested(refunds)
+                .requestedAt(now)
+                .heartbeatAt(refunds > 0 ? now : null)
+                .completedAt(refunds > 0 ? null : now)
+                .build());
+        logger.info("🚫 Retired room | roomId={} | cancelledBookings={} | refundsQueued={}", roomId, ids.size(),
+                refunds);
+
+        if (refunds > 0) {
+            // This instance holds the lease from the start; refunds go out once the cancellation committed
+            Long retirementId = retirement.getId();
+            AfterCommit.run(() -> dispatch(retirementId, roomId));
+        }
+        return progress(retirement);
+    }
+
+    @Transactional(readOnly = true)
+    public Progress getProgress(Long roomId) {
+        return retirementRepository.findByRoomId(roomId)
+                .map(this::progress)
+                .orElseThrow(() -> new RuntimeException("Room " + roomId + " is not retired"));
+    }
+
+    @Scheduled(initialDelayString = "${room-retirement.resume-interval-ms:60000}",
+            fixedDelayString = "${room-retirement.resume-interval-ms:60000}")
+    public void resumeStale() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime staleBefore = now.minusNanos(leaseMs * 1_000_000);
+        for (Long id : retirementRepository.findStaleIds(staleBefore)) {
+            if (!dispatching.contains(id) && retirementRepository.claim(id, now, staleBefore) > 0) {
+                retirementRepository.findById(id).ifPresent(retirement -> {
+                    logger.info("🔁 Resuming room retirement refunds | roomId={}", retirement.getRoomId());
+                    dispatch(id, retirement.getRoomId());
+                });
+            }
+        }
+    }
+
+    private void dispatch(Long retirementId, Long roomId) {
+        if (dispatching.add(retirementId)) {
+            coordinator.execute(() -> {
+                try {
+                    sendRefunds(retirementId, roomId);
+                } catch (Exception e) {
+                    logger.error("❌ Room retirement refunds stopped | roomId={}", roomId, e);
+                    retirementRepository.release(retirementId);
+                } finally {
+                    dispatching.remove(retirementId);
+                }
+            });
+        }
+    }
+
+    private void sendRefunds(Long retirementId, Long roomId) throws InterruptedException {
+        long started = System.currentTimeMillis();
+        int sent = 0;
+        int failed = 0;
+        long afterId = 0;
+        while (true) {
+            List<BookingRepository.QueuedRefund> page = bookingRepository.findQueuedRefunds(roomId, afterId,
+                    PageRequest.of(0, pageSize));
+            if (page.isEmpty()) {
+                break;
+            }
+            List<Future<?>> inFlight = new ArrayList<>(page.size());
+            for (BookingRepository.QueuedRefund row : page) {
+                inFlight.add(refundPool.submit(() -> {
+                    rateLimiter.acquire();
+                    PayPalService.RefundResult refund = payPalService.refund(row.getPaypalCaptureId(),
+                            row.getAmount() != null ? row.getAmount() : 0,
+                            PayPalService.refundRequestId(row.getId()));
+                    String status = refund.getStatus() != null ? refund.getStatus() : "FAILED";
+                    bookingRepository.recordQueuedRefund(row.getId(), status, refund.getRefundId());
+                    return null;
+                }));
+            }
+            for (int i = 0; i < inFlight.size(); i++) {
+                try {
+                    inFlight.get(i).get();
+                    sent++;
+                } catch (ExecutionException e) {
+                    // Stays QUEUED: retried with the same request id once the lease is given up
+                    failed++;
+                    logger.warn("⚠️ Refund not sent for bookingId={}", page.get(i).getId(), e.getCause());
+                }
+            }
+            retirementRepository.heartbeat(retirementId, LocalDateTime.now());
+            afterId = page.get(page.size() - 1).getId();
+        }
+
+        if (bookingRepository.countByRoomIdAndRefundStatus(roomId, "QUEUED") == 0) {
+            retirementRepository.markCompleted(retirementId, LocalDateTime.now());
+        } else {
+            retirementRepository.release(retirementId);
+        }
+        logger.info("✅ Room retirement refunds sent | roomId={} | sent={} | failed={} | took={}ms", roomId, sent,
+                failed, System.currentTimeMillis() - started);
+    }
+
+    private Progress progress(RoomRetirement retirement) {
+        long remaining = "COMPLETED".equals(retirement.getStatus()) ? 0
+                : bookingRepository.countByRoomIdAndRefundStatus(retirement.getRoomId(), "QUEUED");
+        return new Progress(retirement.getRoomId(), retirement.getStatus(), retirement.getCancelledBookings(),
+                retirement.getRefundsRequested(), remaining, retirement.getRequestedAt(),
+                retirement.getCompletedAt());
+    }
+}
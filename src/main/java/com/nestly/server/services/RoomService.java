@@ -1,8 +1,12 @@
 package com.nestly.server.services;
 
 import com.nestly.server.models.Room;
+import com.nestly.server.repositories.ArchivedBookingRepository;
+import com.nestly.server.repositories.BookingRepository;
 import com.nestly.server.repositories.RoomRepository;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.io.IOException;
 import java.nio.file.Files;
@@ -14,33 +18,68 @@ import java.util.UUID;
 @Service
 public class RoomService {
 
+    public static final String ROOM_CACHE = "rooms";
+    public static final String ROOM_LIST_CACHE = "room-lists";
+
     private final RoomRepository roomRepository;
-    // private final String uploadDir = "uploads/"; // folder inside project
-    // New folder: inside resources/static/images
-    private final String uploadDir = "src/main/resources/static/images/";
+    private final BookingRepository bookingRepository;
+    private final ArchivedBookingRepository archivedBookingRepository;
+    private final ChangeVersionService changeVersions;
+    private final CacheInvalidationBus invalidationBus;
+    private final RoomSuggestService suggestService;
+    private final RoomSimilarityService similarityService;
+    // Keyed by the change counter behind each ETag, so a body is never served under a newer
+    // ETag than the data it was loaded from; the bus only evicts superseded entries
+    private final LocalCache<Room> roomCache;
+    private final LocalCache<List<Room>> roomListCache;
+    private final String uploadDir;
 
-    public RoomService(RoomRepository roomRepository) {
+    public RoomService(RoomRepository roomRepository, BookingRepository bookingRepository,
+            ArchivedBookingRepository archivedBookingRepository,
+            ChangeVersionService changeVersions,
+            CacheInvalidationBus invalidationBus,
+            RoomSuggestService suggestService,
+            RoomSimilarityService similarityService,
+            @Value("${cache.rooms.max-entries:10000}") int maxEntries,
+            @Value("${rooms.upload-dir:src/main/resources/static/images/}") String uploadDir) {
         this.roomRepository = roomRepository;
+        this.bookingRepository = bookingRepository;
+        this.archivedBookingRepository = archivedBookingRepository;
+        this.changeVersions = changeVersions;
+        this.invalidationBus = invalidationBus;
+        this.suggestService = suggestService;
+        this.similarityService = similarityService;
+        this.uploadDir = uploadDir;
+        this.roomCache = invalidationBus.register(ROOM_CACHE, new LocalCache<>(maxEntries));
+        this.roomListCache = invalidationBus.register(ROOM_LIST_CACHE, new LocalCache<>(16));
     }
 
-    public List<Room> getFeaturedRooms() {
-        return roomRepository.findByFeaturedTrue();
+    // ✅ Not transactional: a cache hit needs no connection
+    public List<Room> getFeaturedRooms(long roomsVersion) {
+        return roomListCache.get("featured:" + roomsVersion, roomRepository::findByFeaturedTrue);
     }
 
-    public List<Room> getAllRooms() {
-        return roomRepository.findAll();
+    public List<Room> getAllRooms(long roomsVersion) {
+        return roomListCache.get("all:" + roomsVersion, roomRepository::findAll);
     }
 
+    @Transactional
     public Room addRoom(Room room) {
-        return roomRepository.save(room);
+        Room saved = roomRepository.save(room);
+        changeVersions.bump(ChangeVersionService.ROOMS);
+        invalidationBus.publishAll(ROOM_LIST_CACHE);
+        suggestService.roomAdded(saved);
+        similarityService.roomAdded(saved);
+        return saved;
     }
 
-    public Room getRoomById(Long id) {
-        return roomRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Room not found"));
+    public Room getRoomById(Long id, long roomVersion) {
+        return roomCache.get(id + ":" + roomVersion, () -> roomRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Room not found")));
     }
 
     // New method to handle file upload safely
+    @Transactional
     public Room addRoomWithFile(String name, String type, Double price, Boolean featured,
             String description, String city,
             String address, byte[] fileBytes, String originalFileName) {
@@ -78,16 +117,32 @@ public class RoomService {
                     city, // new city field
                     address // new address field
             );
-            return roomRepository.save(room);
+            Room saved = roomRepository.save(room);
+            changeVersions.bump(ChangeVersionService.ROOMS);
+            invalidationBus.publishAll(ROOM_LIST_CACHE);
+            suggestService.roomAdded(saved);
+            similarityService.roomAdded(saved);
+            return saved;
 
         } catch (IOException e) {
             throw new RuntimeException("Failed to save file", e);
         }
     }
 
+    @Transactional
     public void deleteRoom(Long id) {
         Room room = roomRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Room not found"));
+        // ✅ Bookings keep their room, archived ones included; such rooms are retired instead
+        if (bookingRepository.existsByRoomId(id) || archivedBookingRepository.existsByRoomId(id)) {
+            throw new RuntimeException("Room has bookings, retire it instead");
+        }
         roomRepository.delete(room);
+        changeVersions.bump(ChangeVersionService.ROOMS);
+        changeVersions.bump(ChangeVersionService.room(id));
+        invalidationBus.publishAll(ROOM_LIST_CACHE);
+        invalidationBus.publishAll(ROOM_CACHE);
+        suggestService.roomRemoved(id);
+        similarityService.roomRemoved(id);
     }
 }
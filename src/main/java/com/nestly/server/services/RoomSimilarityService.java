@@ -0,0 +1,95 @@
+package com.nestly.server.services;
+
+import com.nestly.server.models.Room;
+import com.nestly.server.repositories.RoomRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.UnaryOperator;
+
+// "Similar rooms" for room detail pages, served from a precomputed RoomSimilarityTable.
+// The refresh job builds the table in the background and rebuilds it when the rooms counter
+// moved on another instance; RoomService writes are applied incrementally after commit.
+@Service
+public class RoomSimilarityService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoomSimilarityService.class);
+
+    private final RoomRepository roomRepository;
+    private final ChangeVersionService changeVersions;
+    private final int neighbours;
+    private final ForkJoinPool pool;
+    private volatile RoomSimilarityTable table;
+
+    public RoomSimilarityService(RoomRepository roomRepository,
+            ChangeVersionService changeVersions,
+            @Value("${rooms.similar.neighbours:8}") int neighbours,
+            @Value("${rooms.similar.parallelism:0}") int parallelism) {
+        this.roomRepository = roomRepository;
+        this.changeVersions = changeVersions;
+        this.neighbours = neighbours;
+        // 0 = share the common pool
+        this.pool = parallelism > 0 ? new ForkJoinPool(parallelism) : ForkJoinPool.commonPool();
+    }
+
+    // ✅ No computation at request time; empty until the first build has finished
+    public List<Room> similar(Long roomId) {
+        RoomSimilarityTable current = table;
+        return current != null ? current.similar(roomId) : List.of();
+    }
+
+    // ✅ Called inside the transaction that saved the room, after the rooms counter was bumped
+    public void roomAdded(Room room) {
+        if (Boolean.FALSE.equals(room.getAvailable())) {
+            return;
+        }
+        long version = changeVersions.version(ChangeVersionService.ROOMS);
+        AfterCommit.run(() -> apply(version, current -> current.withRoom(version, room)));
+    }
+
+    public void roomRemoved(Long roomId) {
+        long version = changeVersions.version(ChangeVersionService.ROOMS);
+        AfterCommit.run(() -> apply(version, current -> current.withoutRoom(version, roomId)));
+    }
+
+    @Scheduled(fixedDelayString = "${rooms.similar.refresh-interval-ms:60000}")
+    public void refresh() {
+        RoomSimilarityTable current = table;
+        long version = changeVersions.version(ChangeVersionService.ROOMS);
+        if (current == null || current.version() != version) {
+            rebuild(version);
+        }
+    }
+
+    private synchronized void rebuild(long version) {
+        long started = System.currentTimeMillis();
+        // The version is read before the rooms: a room saved meanwhile only costs one more rebuild
+        // Unavailable (retired) rooms are never suggested as neighbours
+        List<Room> rooms = roomRepository.findAll().stream()
+                .filter(room -> !Boolean.FALSE.equals(room.getAvailable()))
+                .toList();
+        table = RoomSimilarityTable.build(version, rooms, neighbours, pool);
+        logger.info("✅ Built similar rooms table | rooms={} | version={} | took={}ms", table.size(), version,
+                System.currentTimeMillis() - started);
+    }
+
+    // Applied only on top of the version the change was made against; anything else waits for refresh
+    private synchronized void apply(long newVersion,
+            UnaryOperator<RoomSimilarityTable> change) {
+        RoomSimilarityTable current = table;
+        if (current == null || current.version() != newVersion - 1) {
+            logger.info("💡 Similar rooms table behind rooms version={}, rebuilding on next refresh", newVersion);
+            return;
+        }
+        try {
+            table = change.apply(current);
+        } catch (Exception e) {
+            logger.error("❌ Failed to update similar rooms for version={}", newVersion, e);
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.nestly.server.services;
+
+import com.nestly.server.models.Room;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Precomputed "similar rooms": the top-K neighbours of every room, as one long[] of room ids
+// (row i = neighbours of ids[i], best first, -1 padded) with their scores alongside.
+// Rooms are encoded as a feature vector (city, type, price band, featured) and compared with
+// a weighted match score. The full build is a fork-join pass over rows; a room added or
+// removed produces a new table that only recomputes the rows it affects.
+// Tables are immutable, so readers need no locking.
+public final class RoomSimilarityTable {
+
+    private static final float CITY_WEIGHT = 0.5f;
+    private static final float TYPE_WEIGHT = 0.25f;
+    private static final float PRICE_WEIGHT = 0.2f;
+    private static final float FEATURED_WEIGHT = 0.05f;
+    // Half-octave price bands; rooms more than PRICE_BAND_SPAN bands apart share no price score
+    private static final double BANDS_PER_DOUBLING = 2.0;
+    private static final float PRICE_BAND_SPAN = 4f;
+    // Rows per fork-join leaf task
+    private static final int ROWS_PER_TASK = 64;
+
+    private final long version;
+    private final int k;
+    private final long[] ids;
+    private final Room[] rooms;
+    private final int[] city;
+    private final int[] type;
+    private final int[] priceBand;
+    private final boolean[] featured;
+    private final long[] neighbours;
+    private final float[] scores;
+
+    private RoomSimilarityTable(long version, int k, Room[] rooms) {
+        this.version = version;
+        this.k = k;
+        this.rooms = rooms;
+        int n = rooms.length;
+        this.ids = new long[n];
+        this.city = new int[n];
+        this.type = new int[n];
+        this.priceBand = new int[n];
+        this.featured = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            encode(i);
+        }
+        this.neighbours = new long[n * k];
+        this.scores = new float[n * k];
+    }
+
+    public static RoomSimilarityTable build(long version, List<Room> rooms, int k, ForkJoinPool pool) {
+        Room[] sorted = rooms.stream().sorted(Comparator.comparing(Room::getId)).toArray(Room[]::new);
+        RoomSimilarityTable table = new RoomSimilarityTable(version, k, sorted);
+        pool.invoke(table.new RowsTask(0, sorted.length));
+        return table;
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    // ✅ Request path: a binary search and a row copy
+    public List<Room> similar(long roomId) {
+        int row = Arrays.binarySearch(ids, roomId);
+        if (row < 0) {
+            return List.of();
+        }
+        List<Room> similar = new ArrayList<>(k);
+        for (int j = row * k; j < (row + 1) * k && neighbours[j] >= 0; j++) {
+            similar.add(rooms[Arrays.binarySearch(ids, neighbours[j])]);
+        }
+        return similar;
+    }
+
+    // New room: its own row, plus a single-slot update of every row it now ranks in
+    public RoomSimilarityTable withRoom(long newVersion, Room room) {
+        int existing = Arrays.binarySearch(ids, room.getId());
+        RoomSimilarityTable base = existing >= 0 ? withoutRoom(version, room.getId()) : this;
+        int at = -Arrays.binarySearch(base.ids, room.getId()) - 1;
+        int n = base.ids.length;
+
+        Room[] next = new Room[n + 1];
+        System.arraycopy(base.rooms, 0, next, 0, at);
+        next[at] = room;
+        System.arraycopy(base.rooms, at, next, at + 1, n - at);
+        RoomSimilarityTable table = new RoomSimilarityTable(newVersion, k, next);
+        System.arraycopy(base.neighbours, 0, table.neighbours, 0, at * k);
+        System.arraycopy(base.neighbours, at * k, table.neighbours, (at + 1) * k, (n - at) * k);
+        System.arraycopy(base.scores, 0, table.scores, 0, at * k);
+        System.arraycopy(base.scores, at * k, table.scores, (at + 1) * k, (n - at) * k);
+
+        table.computeRow(at);
+        for (int row = 0; row <= n; row++) {
+            if (row != at) {
+                table.offer(row, table.ids[at], table.score(row, at));
+            }
+        }
+        return table;
+    }
+
+    // Removed room: only the rows that listed it are recomputed
+    public RoomSimilarityTable withoutRoom(long newVersion, long roomId) {
+        int at = Arrays.binarySearch(ids, roomId);
+        int n = ids.length;
+        if (at < 0) {
+            RoomSimilarityTable table = new RoomSimilarityTable(newVersion, k, rooms);
+            System.arraycopy(neighbours, 0, table.neighbours, 0, neighbours.length);
+            System.arraycopy(scores, 0, table.scores, 0, scores.length);
+            return table;
+        }
+
+        Room[] next = new Room[n - 1];
+        System.arraycopy(rooms, 0, next, 0, at);
+        System.arraycopy(rooms, at + 1, next, at, n - at - 1);
+        RoomSimilarityTable table = new RoomSimilarityTable(newVersion, k, next);
+        System.arraycopy(neighbours, 0, table.neighbours, 0, at * k);
+        System.arraycopy(neighbours, (at + 1) * k, table.neighbours, at * k, (n - at - 1) * k);
+        System.arraycopy(scores, 0, table.scores, 0, at * k);
+        System.arraycopy(scores, (at + 1) * k, table.scores, at * k, (n - at - 1) * k);
+
+        for (int row = 0; row < n - 1; row++) {
+            for (int j = row * k; j < (row + 1) * k; j++) {
+                if (table.neighbours[j] == roomId) {
+                    table.computeRow(row);
+                    break;
+                }
+            }
+        }
+        return table;
+    }
+
+    private void encode(int i) {
+        Room room = rooms[i];
+        ids[i] = room.getId();
+        city[i] = room.getCity() != null ? room.getCity().trim().toLowerCase(Locale.ROOT).hashCode() : 0;
+        type[i] = room.getType() != null ? room.getType().trim().toLowerCase(Locale.ROOT).hashCode() : 0;
+        Double price = room.getPrice();
+        priceBand[i] = price != null && price > 0
+                ? (int) Math.floor(Math.log(price) / Math.log(2) * BANDS_PER_DOUBLING)
+                : Integer.MIN_VALUE;
+        featured[i] = Boolean.TRUE.equals(room.getFeatured());
+    }
+
+    private float score(int a, int b) {
+        float score = 0;
+        if (city[a] == city[b] && city[a] != 0) {
+            score += CITY_WEIGHT;
+        }
+        if (type[a] == type[b] && type[a] != 0) {
+            score += TYPE_WEIGHT;
+        }
+        if (priceBand[a] != Integer.MIN_VALUE && priceBand[b] != Integer.MIN_VALUE) {
+            float distance = Math.abs(priceBand[a] - priceBand[b]);
+            score += PRICE_WEIGHT * Math.max(0f, 1f - distance / PRICE_BAND_SPAN);
+        }
+        if (featured[a] == featured[b]) {
+            score += FEATURED_WEIGHT;
+        }
+        return score;
+    }
+
+    private void computeRow(int row) {
+        Arrays.fill(neighbours, row * k, (row + 1) * k, -1L);
+        Arrays.fill(scores, row * k, (row + 1) * k, 0f);
+        for (int other = 0; other < ids.length; other++) {
+            if (other != row) {
+                offer(row, ids[other], score(row, other));
+            }
+        }
+    }
+
+    // Insertion into the row's sorted top-K; ties go to the lower room id
+    private void offer(int row, long candidate, float score) {
+        int start = row * k;
+        int end = start + k;
+        if (score <= 0 || !beats(score, candidate, end - 1)) {
+            return;
+        }
+        int j = end - 1;
+        while (j > start && beats(score, candidate, j - 1)) {
+            neighbours[j] = neighbours[j - 1];
+            scores[j] = scores[j - 1];
+            j--;
+        }
+        neighbours[j] = candidate;
+        scores[j] = score;
+    }
+
+    private boolean beats(float score, long candidate, int slot) {
+        return neighbours[slot] < 0 || score > scores[slot]
+                || (score == scores[slot] && candidate < neighbours[slot]);
+    }
+
+    private final class RowsTask extends RecursiveAction {
+        private final int from;
+        private final int to;
+
+        private RowsTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= ROWS_PER_TASK) {
+                for (int row = from; row < to; row++) {
+                    computeRow(row);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new RowsTask(from, mid), new RowsTask(mid, to));
+        }
+    }
+}
@@ -0,0 +1,311 @@
+package com.nestly.server.services;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+// Prefix index over room cities, addresses and names for search-box autocomplete.
+// A character trie stored in parallel primitive arrays (no object per node). Every term is
+// inserted under each of its word starts, so "hills" finds "Banjara Hills". Each node keeps
+// the best score in its subtree, so a lookup walks the prefix and then pops subtrees
+// best-first, touching only about as many nodes as it returns.
+//
+// Score ranks by how many rooms a term covers, then by their bookings. Terms whose last room
+// is removed drop to score 0 and are skipped until the next full rebuild.
+public class RoomSuggestIndex {
+
+    public enum Kind {
+        CITY, ADDRESS, ROOM
+    }
+
+    public record Suggestion(String text, Kind kind, int rooms) {
+    }
+
+    private static final class Term {
+        private final String text;
+        private final Kind kind;
+        private final String normalized;
+        private int rooms;
+        private long popularity;
+
+        private Term(String text, Kind kind, String normalized) {
+            this.text = text;
+            this.kind = kind;
+            this.normalized = normalized;
+        }
+
+        private long score() {
+            return rooms <= 0 ? 0 : ((long) rooms << 32) | Math.min(Math.max(popularity, 0), 0xFFFFFFFFL);
+        }
+    }
+
+    private record RoomTerms(int[] termIds, long popularity) {
+    }
+
+    // Queue item: a subtree (term < 0) or a single term, ordered by score
+    private record Candidate(long score, int node, int term) {
+    }
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    // Bounds the keys per term for long addresses
+    private static final int MAX_WORD_STARTS = 8;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<Term> terms = new ArrayList<>();
+    private final Map<String, Integer> termIds = new HashMap<>();
+    private final Map<Long, RoomTerms> rooms = new HashMap<>();
+    private long version;
+
+    // Trie nodes; node 0 is the root
+    private char[] label = new char[1024];
+    private int[] firstChild = new int[1024];
+    private int[] nextSibling = new int[1024];
+    private int[] firstPosting = new int[1024];
+    private long[] best = new long[1024];
+    private int nodes = 1;
+
+    // Terms ending at a node, as linked lists
+    private int[] postingTerm = new int[256];
+    private int[] postingNext = new int[256];
+    private int postings;
+
+    public RoomSuggestIndex(long version) {
+        this.version = version;
+        firstChild[0] = -1;
+        nextSibling[0] = -1;
+        firstPosting[0] = -1;
+    }
+
+    public long version() {
+        lock.readLock().lock();
+        try {
+            return version;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void put(long roomId, String city, String address, String name, long popularity) {
+        lock.writeLock().lock();
+        try {
+            putRoom(roomId, city, address, name, popularity);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ✅ Applied only on top of the version the change was made against; returns false when
+    // the index missed a change and needs a rebuild
+    public boolean roomAdded(long newVersion, long roomId, String city, String address, String name) {
+        lock.writeLock().lock();
+        try {
+            if (version != newVersion - 1) {
+                return false;
+            }
+            putRoom(roomId, city, address, name, 0);
+            version = newVersion;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean roomRemoved(long newVersion, long roomId) {
+        lock.writeLock().lock();
+        try {
+            if (version != newVersion - 1) {
+                return false;
+            }
+            dropRoom(roomId);
+            version = newVersion;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<Suggestion> suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            int node = 0;
+            for (int i = 0; i < key.length() && node >= 0; i++) {
+                node = child(node, key.charAt(i));
+            }
+            if (node < 0 || best[node] <= 0) {
+                return List.of();
+            }
+
+            List<Suggestion> results = new ArrayList<>(limit);
+            Set<Integer> emitted = new HashSet<>();
+            PriorityQueue<Candidate> queue = new PriorityQueue<>(Comparator
+                    .comparingLong(Candidate::score).reversed()
+                    .thenComparing(c -> c.term() < 0));
+            queue.add(new Candidate(best[node], node, -1));
+            while (!queue.isEmpty() && results.size() < limit) {
+                Candidate next = queue.poll();
+                if (next.term() >= 0) {
+                    if (emitted.add(next.term())) {
+                        Term term = terms.get(next.term());
+                        results.add(new Suggestion(term.text, term.kind, term.rooms));
+                    }
+                    continue;
+                }
+                for (int p = firstPosting[next.node()]; p >= 0; p = postingNext[p]) {
+                    long score = terms.get(postingTerm[p]).score();
+                    if (score > 0) {
+                        queue.add(new Candidate(score, next.node(), postingTerm[p]));
+                    }
+                }
+                for (int c = firstChild[next.node()]; c >= 0; c = nextSibling[c]) {
+                    if (best[c] > 0) {
+                        queue.add(new Candidate(best[c], c, -1));
+                    }
+                }
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String folded = MARKS.matcher(Normalizer.normalize(text.toLowerCase(Locale.ROOT), Normalizer.Form.NFD))
+                .replaceAll("");
+        return SEPARATORS.matcher(folded).replaceAll(" ").trim();
+    }
+
+    private void putRoom(long roomId, String city, String address, String name, long popularity) {
+        dropRoom(roomId);
+        int[] ids = { term(Kind.CITY, city), term(Kind.ADDRESS, address), term(Kind.ROOM, name) };
+        for (int id : ids) {
+            if (id >= 0) {
+                terms.get(id).rooms++;
+                terms.get(id).popularity += popularity;
+                rescore(id);
+            }
+        }
+        rooms.put(roomId, new RoomTerms(ids, popularity));
+    }
+
+    private void dropRoom(long roomId) {
+        RoomTerms previous = rooms.remove(roomId);
+        if (previous == null) {
+            return;
+        }
+        for (int id : previous.termIds()) {
+            if (id >= 0) {
+                terms.get(id).rooms--;
+                terms.get(id).popularity -= previous.popularity();
+                rescore(id);
+            }
+        }
+    }
+
+    private int term(Kind kind, String text) {
+        String normalized = normalize(text);
+        if (normalized.isEmpty()) {
+            return -1;
+        }
+        Integer existing = termIds.get(kind + ":" + normalized);
+        if (existing != null) {
+            return existing;
+        }
+        int id = terms.size();
+        terms.add(new Term(text.trim(), kind, normalized));
+        termIds.put(kind + ":" + normalized, id);
+        for (String key : keys(normalized)) {
+            int node = 0;
+            for (int i = 0; i < key.length(); i++) {
+                int next = child(node, key.charAt(i));
+                node = next >= 0 ? next : newChild(node, key.charAt(i));
+            }
+            if (postings == postingTerm.length) {
+                postingTerm = Arrays.copyOf(postingTerm, postings * 2);
+                postingNext = Arrays.copyOf(postingNext, postings * 2);
+            }
+            postingTerm[postings] = id;
+            postingNext[postings] = firstPosting[node];
+            firstPosting[node] = postings++;
+        }
+        return id;
+    }
+
+    // The whole term plus every suffix starting at a word
+    private static List<String> keys(String normalized) {
+        List<String> keys = new ArrayList<>();
+        keys.add(normalized);
+        for (int i = normalized.indexOf(' '); i >= 0 && keys.size() < MAX_WORD_STARTS;
+                i = normalized.indexOf(' ', i + 1)) {
+            keys.add(normalized.substring(i + 1));
+        }
+        return keys;
+    }
+
+    // Recomputes subtree bests bottom-up along every key path of the term
+    private void rescore(int termId) {
+        String normalized = terms.get(termId).normalized;
+        for (String key : keys(normalized)) {
+            int[] path = new int[key.length() + 1];
+            for (int i = 0; i < key.length(); i++) {
+                path[i + 1] = child(path[i], key.charAt(i));
+            }
+            for (int i = path.length - 1; i >= 0; i--) {
+                int node = path[i];
+                long max = 0;
+                for (int p = firstPosting[node]; p >= 0; p = postingNext[p]) {
+                    max = Math.max(max, terms.get(postingTerm[p]).score());
+                }
+                for (int c = firstChild[node]; c >= 0; c = nextSibling[c]) {
+                    max = Math.max(max, best[c]);
+                }
+                best[node] = max;
+            }
+        }
+    }
+
+    private int child(int node, char c) {
+        for (int child = firstChild[node]; child >= 0; child = nextSibling[child]) {
+            if (label[child] == c) {
+                return child;
+            }
+        }
+        return -1;
+    }
+
+    private int newChild(int parent, char c) {
+        if (nodes == label.length) {
+            int capacity = nodes * 2;
+            label = Arrays.copyOf(label, capacity);
+            firstChild = Arrays.copyOf(firstChild, capacity);
+            nextSibling = Arrays.copyOf(nextSibling, capacity);
+            firstPosting = Arrays.copyOf(firstPosting, capacity);
+            best = Arrays.copyOf(best, capacity);
+        }
+        int node = nodes++;
+        label[node] = c;
+        firstChild[node] = -1;
+        firstPosting[node] = -1;
+        nextSibling[node] = firstChild[parent];
+        firstChild[parent] = node;
+        return node;
+    }
+}
@@ -0,0 +1,118 @@
+package com.nestly.server.services;
+
+import com.nestly.server.models.Room;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+
+// Search-box autocomplete over room cities, addresses and names of bookable rooms.
+// Lookups only read the in-memory RoomSuggestIndex. RoomService writes are applied to it
+// after commit; the refresh job builds it at startup, rebuilds it when the rooms counter moved
+// on another instance, and periodically so booking popularity stays current.
+@Service
+public class RoomSuggestService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoomSuggestService.class);
+
+    // Popularity = bookings over the last popularity-months, from the monthly rollups
+    private static final String ROOMS_QUERY = "select r.id, r.city, r.address, r.name, coalesce(p.bookings, 0) "
+            + "from rooms r left join (select room_id, sum(bookings) as bookings from booking_rollups "
+            + "where month_start >= ? group by room_id) p on p.room_id = r.id "
+            + "where r.available is null or r.available = true";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ChangeVersionService changeVersions;
+    private final int maxLimit;
+    private final int popularityMonths;
+    private final long rebuildIntervalMs;
+    private volatile RoomSuggestIndex index;
+    private volatile long builtAt;
+
+    public RoomSuggestService(JdbcTemplate jdbcTemplate,
+            ChangeVersionService changeVersions,
+            @Value("${rooms.suggest.max-limit:20}") int maxLimit,
+            @Value("${rooms.suggest.popularity-months:12}") int popularityMonths,
+            @Value("${rooms.suggest.rebuild-interval-ms:600000}") long rebuildIntervalMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.changeVersions = changeVersions;
+        this.maxLimit = maxLimit;
+        this.popularityMonths = popularityMonths;
+        this.rebuildIntervalMs = rebuildIntervalMs;
+    }
+
+    // ✅ No database access once the index is built
+    public List<RoomSuggestIndex.Suggestion> suggest(String prefix, int limit) {
+        RoomSuggestIndex current = index;
+        if (current == null) {
+            current = buildIfAbsent();
+        }
+        return current.suggest(prefix, Math.min(limit, maxLimit));
+    }
+
+    // ✅ Called inside the transaction that saved the room, after the rooms counter was bumped
+    public void roomAdded(Room room) {
+        if (Boolean.FALSE.equals(room.getAvailable())) {
+            return;
+        }
+        long version = changeVersions.version(ChangeVersionService.ROOMS);
+        AfterCommit.run(() -> {
+            RoomSuggestIndex current = index;
+            if (current != null && !current.roomAdded(version, room.getId(), room.getCity(), room.getAddress(),
+                    room.getName())) {
+                logger.info("💡 Room suggest index behind rooms version={}, rebuilding on next refresh", version);
+            }
+        });
+    }
+
+    public void roomRemoved(Long roomId) {
+        long version = changeVersions.version(ChangeVersionService.ROOMS);
+        AfterCommit.run(() -> {
+            RoomSuggestIndex current = index;
+            if (current != null && !current.roomRemoved(version, roomId)) {
+                logger.info("💡 Room suggest index behind rooms version={}, rebuilding on next refresh", version);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${rooms.suggest.refresh-interval-ms:30000}")
+    public void refresh() {
+        RoomSuggestIndex current = index;
+        if (current == null) {
+            buildIfAbsent(); // first run at startup, so lookups rarely find it cold
+            return;
+        }
+        long version = changeVersions.version(ChangeVersionService.ROOMS);
+        if (current.version() != version || System.currentTimeMillis() - builtAt > rebuildIntervalMs) {
+            rebuild();
+        }
+    }
+
+    // ✅ Cold index: concurrent first lookups wait for one build instead of each running their own
+    private synchronized RoomSuggestIndex buildIfAbsent() {
+        RoomSuggestIndex current = index;
+        return current != null ? current : rebuild();
+    }
+
+    // The version is read before the scan: a room saved during it only triggers one more rebuild
+    public synchronized RoomSuggestIndex rebuild() {
+        long started = System.currentTimeMillis();
+        RoomSuggestIndex built = new RoomSuggestIndex(changeVersions.version(ChangeVersionService.ROOMS));
+        int[] rooms = { 0 };
+        jdbcTemplate.query(ROOMS_QUERY, rs -> {
+            built.put(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4), rs.getLong(5));
+            rooms[0]++;
+        }, Date.valueOf(LocalDate.now().withDayOfMonth(1).minusMonths(popularityMonths)));
+        index = built;
+        builtAt = System.currentTimeMillis();
+        logger.info("✅ Built room suggest index | rooms={} | version={} | took={}ms", rooms[0], built.version(),
+                builtAt - started);
+        return built;
+    }
+}
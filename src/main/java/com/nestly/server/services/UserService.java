@@ -3,24 +3,40 @@ package com.nestly.server.services;
 import com.nestly.server.models.Role;
 import com.nestly.server.models.User;
 import com.nestly.server.repositories.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.Optional;
 
 @Service
 public class UserService {
 
+    public static final String USER_CACHE = "users";
+
     private final UserRepository userRepository;
     private final BCryptPasswordEncoder passwordEncoder;
+    private final CacheInvalidationBus invalidationBus;
+    private final TransactionTemplate transactionTemplate;
+    // Users by email for the JWT filter; dropped cluster-wide when a password or account changes
+    private final LocalCache<User> userCache;
 
     // ✅ Constructor Injection
-    public UserService(UserRepository userRepository) {
+    public UserService(UserRepository userRepository, CacheInvalidationBus invalidationBus,
+            PlatformTransactionManager transactionManager,
+            @Value("${cache.users.max-entries:10000}") int maxEntries) {
         this.userRepository = userRepository;
         this.passwordEncoder = new BCryptPasswordEncoder();
+        this.invalidationBus = invalidationBus;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.userCache = invalidationBus.register(USER_CACHE, new LocalCache<>(maxEntries));
     }
 
     // Add this method
+    @Transactional(readOnly = true)
     public User findByEmail(String email) {
         return userRepository.findByEmail(email).orElse(null);
     }
@@ -51,6 +67,7 @@ public class UserService {
     }
 
     // ✅ Login (authenticate) user using email
+    // Not transactional: BCrypt must not run while holding a pooled connection
     public User loginUserByEmail(String email, String password) {
         Optional<User> optionalUser = userRepository.findByEmail(email);
         if (optionalUser.isEmpty()) {
@@ -67,37 +84,42 @@ public class UserService {
     }
 
     // ✅ Fetch a user by ID
+    @Transactional(readOnly = true)
     public User getUserById(Long id) {
         return userRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("User not found"));
     }
 
+    // ✅ Called on every authenticated request; a cache hit needs no connection
     public User getUserByEmail(String email) {
-        return userRepository.findByEmail(email).orElse(null);
+        return userCache.get(email, () -> userRepository.findByEmail(email).orElse(null));
     }
 
     // ✅ Fetch a user by username
+    @Transactional(readOnly = true)
     public Optional<User> getUserByUsername(String username) {
         return userRepository.findByUsername(username);
     }
 
     // ✅ Delete a user (for admin use later)
+    @Transactional
     public void deleteUser(Long id) {
-        if (!userRepository.existsById(id)) {
-            throw new RuntimeException("User not found");
-        }
-        userRepository.deleteById(id);
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        userRepository.delete(user);
+        invalidationBus.publish(USER_CACHE, user.getEmail());
     }
 
     // ✅ Forgot Password logic
+    // Hashed before the transaction: BCrypt must not run while holding a pooled connection
     public void updatePassword(String email, String newPassword) {
-        Optional<User> optionalUser = userRepository.findByEmail(email);
-        if (optionalUser.isEmpty()) {
-            throw new RuntimeException("No account found with this email");
-        }
-
-        User user = optionalUser.get();
-        user.setPassword(passwordEncoder.encode(newPassword)); // hash new password
-        userRepository.save(user);
+        String hash = passwordEncoder.encode(newPassword);
+        transactionTemplate.executeWithoutResult(status -> {
+            User user = userRepository.findByEmail(email)
+                    .orElseThrow(() -> new RuntimeException("No account found with this email"));
+            user.setPassword(hash);
+            userRepository.save(user);
+            invalidationBus.publish(USER_CACHE, email);
+        });
     }
 }
@@ -0,0 +1,111 @@
+package com.nestly.server.services;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+// In-memory interval index of WAITING waitlist entries, one per room.
+// Entries are keyed by check-in night (epoch day). Every entry overlapping [from, to) has a
+// check-in in (from - longest stay, to), so a lookup is one sub-map scan of the candidates
+// instead of a pass over the room's whole waitlist.
+//
+// Each room's index carries the change-counter version it was built at; the service reloads
+// a room whose counter moved on another instance and applies its own changes in place.
+public class WaitlistIndex {
+
+    public record Entry(long id, long userId, long checkInDay, long checkOutDay) {
+    }
+
+    private static final class RoomIndex {
+        private final NavigableMap<Long, List<Entry>> byCheckIn = new TreeMap<>();
+        private long version;
+        private long longestStay;
+    }
+
+    private final Map<Long, RoomIndex> rooms = new ConcurrentHashMap<>();
+
+    public boolean isCurrent(long roomId, long version) {
+        RoomIndex index = rooms.get(roomId);
+        if (index == null) {
+            return false;
+        }
+        synchronized (index) {
+            return index.version == version;
+        }
+    }
+
+    public void load(long roomId, long version, List<Entry> entries) {
+        RoomIndex index = new RoomIndex();
+        index.version = version;
+        entries.forEach(entry -> add(index, entry));
+        rooms.put(roomId, index);
+    }
+
+    // ✅ Applied only on top of the version the change was made against; otherwise the room
+    // is dropped and reloaded on its next lookup
+    public void add(long roomId, long newVersion, Entry entry) {
+        update(roomId, newVersion, index -> add(index, entry));
+    }
+
+    public void remove(long roomId, long newVersion, List<Entry> entries) {
+        update(roomId, newVersion, index -> entries.forEach(entry -> {
+            List<Entry> sameNight = index.byCheckIn.get(entry.checkInDay());
+            if (sameNight != null) {
+                sameNight.removeIf(e -> e.id() == entry.id());
+                if (sameNight.isEmpty()) {
+                    index.byCheckIn.remove(entry.checkInDay());
+                }
+            }
+        }));
+    }
+
+    public void evict(long roomId) {
+        rooms.remove(roomId);
+    }
+
+    // Entries overlapping [fromDay, toDay), oldest first
+    public List<Entry> overlapping(long roomId, long fromDay, long toDay) {
+        RoomIndex index = rooms.get(roomId);
+        if (index == null) {
+            return List.of();
+        }
+        List<Entry> matches = new ArrayList<>();
+        synchronized (index) {
+            for (List<Entry> sameNight : index.byCheckIn
+                    .subMap(fromDay - index.longestStay, false, toDay, false).values()) {
+                for (Entry entry : sameNight) {
+                    if (entry.checkOutDay() > fromDay) {
+                        matches.add(entry);
+                    }
+                }
+            }
+        }
+        matches.sort(Comparator.comparingLong(Entry::id));
+        return matches;
+    }
+
+    private void update(long roomId, long newVersion, Consumer<RoomIndex> change) {
+        RoomIndex index = rooms.get(roomId);
+        if (index == null) {
+            return;
+        }
+        synchronized (index) {
+            if (index.version == newVersion - 1) {
+                change.accept(index);
+                index.version = newVersion;
+                return;
+            }
+        }
+        rooms.remove(roomId, index);
+    }
+
+    private static void add(RoomIndex index, Entry entry) {
+        index.byCheckIn.computeIfAbsent(entry.checkInDay(), day -> new ArrayList<>()).add(entry);
+        index.longestStay = Math.max(index.longestStay, entry.checkOutDay() - entry.checkInDay());
+    }
+}
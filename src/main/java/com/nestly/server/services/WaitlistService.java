@@ -0,0 +1,315 @@
+package com.nestly.server.services;
+
+import com.nestly.server.models.Room;
+import com.nestly.server.models.WaitlistEntry;
+import com.nestly.server.repositories.BookingRepository;
+import com.nestly.server.repositories.RoomRepository;
+import com.nestly.server.repositories.UserRepository;
+import com.nestly.server.repositories.WaitlistEntryRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Waitlist for fully booked rooms.
+// Users join with a (room, check-in, check-out) range. When a cancellation frees nights, the
+// room's WaitlistIndex yields the WAITING entries overlapping them; in FIFO order, each one
+// whose whole range is now free is offered a hold for hold-minutes, during which no one else
+// can book those nights. Expired holds are released and matched again.
+// Matching for a room runs under its row lock, so instances never hand out overlapping holds.
+// It runs on a matcher thread once the freeing transaction committed: a request or job thread
+// never holds its own connection while the match takes a second one.
+@Service
+public class WaitlistService {
+
+    private static final Logger logger = LoggerFactory.getLogger(WaitlistService.class);
+
+    private static final List<String> OPEN_STATUSES = List.of("WAITING", "OFFERED");
+
+    private final WaitlistEntryRepository waitlistRepository;
+    private final BookingRepository bookingRepository;
+    private final RoomRepository roomRepository;
+    private final UserRepository userRepository;
+    private final ChangeVersionService changeVersions;
+    private final WaitlistIndex index = new WaitlistIndex();
+    private final TransactionTemplate matchTx;
+    private final ExecutorService matcher;
+    private final Timer matchTimer;
+    private final long holdMinutes;
+    private final int maxNights;
+    private final int expiryBatchSize;
+
+    public WaitlistService(WaitlistEntryRepository waitlistRepository,
+            BookingRepository bookingRepository,
+            RoomRepository roomRepository,
+            UserRepository userRepository,
+            ChangeVersionService changeVersions,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${waitlist.hold-minutes:15}") long holdMinutes,
+            @Value("${waitlist.max-nights:30}") int maxNights,
+            @Value("${waitlist.expiry-batch-size:200}") int expiryBatchSize) {
+        this.waitlistRepository = waitlistRepository;
+        this.bookingRepository = bookingRepository;
+        this.roomRepository = roomRepository;
+        this.userRepository = userRepository;
+        this.changeVersions = changeVersions;
+        this.matchTx = new TransactionTemplate(transactionManager);
+        // Per-room row locks serialize matching anyway; one thread keeps it to one connection
+        this.matcher = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "waitlist-match");
+            t.setDaemon(true);
+            return t;
+        });
+        // Index lookup only: the part that has to stay sub-millisecond on long waitlists
+        this.matchTimer = Timer.builder("waitlist.match").register(meterRegistry);
+        this.holdMinutes = holdMinutes;
+        this.maxNights = maxNights;
+        this.expiryBatchSize = expiryBatchSize;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        matcher.shutdownNow();
+    }
+
+    @Transactional
+    public WaitlistEntry join(Long userId, Long roomId, String checkInDateStr, String checkOutDateStr) {
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+        LocalDate checkIn = LocalDate.parse(checkInDateStr, formatter);
+        LocalDate checkOut = LocalDate.parse(checkOutDateStr, formatter);
+        if (checkIn.isBefore(LocalDate.now()) || !checkOut.isAfter(checkIn)) {
+            throw new RuntimeException("Invalid dates for waitlist");
+        }
+        if (ChronoUnit.DAYS.between(checkIn, checkOut) > maxNights) {
+            throw new RuntimeException("Waitlist stays are limited to " + maxNights + " nights");
+        }
+        if (!userRepository.existsById(userId)) {
+            throw new RuntimeException("User not found for ID=" + userId);
+        }
+        Room room = roomRepository.findById(roomId)
+                .orElseThrow(() -> new RuntimeException("Room not found for ID=" + roomId));
+        if (Boolean.FALSE.equals(room.getAvailable())) {
+            throw new RuntimeException("Room is no longer available for booking");
+        }
+
+        // ✅ Joining twice keeps the original place in the queue
+        var existing = waitlistRepository.findFirstByUserIdAndRoomIdAndCheckInDateAndCheckOutDateAndStatusIn(
+                userId, roomId, checkIn, checkOut, OPEN_STATUSES);
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+        if (!bookingRepository.existsOverlappingBooking(roomId, checkIn, checkOut)
+                && !isHeldForOtherUser(roomId, checkIn, checkOut, userId)) {
+            throw new RuntimeException("Room is available for these dates, book it directly");
+        }
+
+        WaitlistEntry saved = waitlistRepository.save(WaitlistEntry.builder()
+                .userId(userId)
+                .roomId(roomId)
+                .checkInDate(checkIn)
+                .checkOutDate(checkOut)
+                .status("WAITING")
+                .createdAt(LocalDateTime.now())
+                .build());
+        long version = bumpWaitlistVersion(roomId);
+        AfterCommit.run(() -> index.add(roomId, version, toIndexEntry(saved)));
+        logger.info("📝 Joined waitlist | entryId={} | userId={} | roomId={} | {} -> {}",
+                saved.getId(), userId, roomId, checkIn, checkOut);
+        return saved;
+    }
+
+    @Transactional
+    public void leave(Long entryId, Long userId) {
+        WaitlistEntry entry = waitlistRepository.findById(entryId)
+                .orElseThrow(() -> new RuntimeException("Waitlist entry not found for ID=" + entryId));
+        if (!entry.getUserId().equals(userId)) {
+            throw new RuntimeException("Waitlist entry belongs to another user");
+        }
+        String previous = entry.getStatus();
+        if (!OPEN_STATUSES.contains(previous)) {
+            return;
+        }
+        entry.setStatus("CANCELLED");
+        waitlistRepository.save(entry);
+
+        if ("WAITING".equals(previous)) {
+            long version = bumpWaitlistVersion(entry.getRoomId());
+            AfterCommit.run(() -> index.remove(entry.getRoomId(), version, List.of(toIndexEntry(entry))));
+        } else {
+            // A released hold goes to the next in line
+            nightsFreed(entry.getRoomId(), entry.getCheckInDate(), entry.getCheckOutDate());
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public List<WaitlistEntry> getEntriesByUser(Long userId) {
+        return waitlistRepository.findByUserIdOrderByIdDesc(userId);
+    }
+
+    // Checked before a booking is created: held nights are reserved for the offered user
+    public boolean isHeldForOtherUser(Long roomId, LocalDate checkIn, LocalDate checkOut, Long userId) {
+        return waitlistRepository.existsHoldForOtherUser(roomId, checkIn, checkOut, userId, LocalDateTime.now());
+    }
+
+    // ✅ Must run inside the transaction that creates the booking
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordBooked(Long userId, Long roomId, LocalDate checkIn, LocalDate checkOut) {
+        if (waitlistRepository.markBooked(userId, roomId, checkIn, checkOut) > 0) {
+            // WAITING entries may have left the queue; the room's index is rebuilt on next match
+            bumpWaitlistVersion(roomId);
+        }
+    }
+
+    // ✅ Must run inside the transaction that retires the room
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void roomRetired(Long roomId) {
+        if (waitlistRepository.cancelOpenByRoomId(roomId) > 0) {
+            long version = bumpWaitlistVersion(roomId);
+            AfterCommit.run(() -> index.evict(roomId));
+            logger.info("🧹 Cancelled waitlist for retired room | roomId={} | version={}", roomId, version);
+        }
+    }
+
+    // ✅ Called inside the cancelling transaction; matching runs once it has committed
+    public void nightsFreed(Long roomId, LocalDate checkIn, LocalDate checkOut) {
+        LocalDate from = checkIn.isBefore(LocalDate.now()) ? LocalDate.now() : checkIn;
+        if (!checkOut.isAfter(from)) {
+            return;
+        }
+        AfterCommit.run(() -> matcher.execute(() -> {
+            try {
+                matchTx.executeWithoutResult(status -> match(roomId, from, checkOut));
+            } catch (Exception e) {
+                logger.error("❌ Waitlist matching failed | roomId={} | {} -> {}", roomId, from, checkOut, e);
+            }
+        }));
+    }
+
+    @Scheduled(fixedDelayString = "${waitlist.expiry-interval-ms:30000}")
+    public void expireHolds() {
+        List<WaitlistEntry> expired;
+        do {
+            expired = waitlistRepository.findByStatusAndHoldExpiresAtBeforeOrderByIdAsc("OFFERED",
+                    LocalDateTime.now(), PageRequest.of(0, expiryBatchSize));
+            for (WaitlistEntry entry : expired) {
+                matchTx.executeWithoutResult(status -> {
+                    // Another instance may have expired it first
+                    if (waitlistRepository.markExpired(List.of(entry.getId())) > 0) {
+                        nightsFreed(entry.getRoomId(), entry.getCheckInDate(), entry.getCheckOutDate());
+                    }
+                });
+            }
+            if (!expired.isEmpty()) {
+                logger.info("⏰ Expired waitlist holds | count={}", expired.size());
+            }
+        } while (expired.size() == expiryBatchSize);
+    }
+
+    private void match(Long roomId, LocalDate from, LocalDate to) {
+        if (roomRepository.findByIdForUpdate(roomId).isEmpty()) {
+            return;
+        }
+        String versionKey = ChangeVersionService.roomWaitlist(roomId);
+        long version = changeVersions.version(versionKey);
+        if (!index.isCurrent(roomId, version)) {
+            index.load(roomId, version, waitlistRepository.findByRoomIdAndStatusOrderByIdAsc(roomId, "WAITING")
+                    .stream().map(WaitlistService::toIndexEntry).toList());
+        }
+
+        long start = System.nanoTime();
+        List<WaitlistIndex.Entry> candidates = index.overlapping(roomId, from.toEpochDay(), to.toEpochDay());
+        matchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (candidates.isEmpty()) {
+            return;
+        }
+
+        // One read each for the stays and holds around all candidates, then pure in-memory checks
+        long windowFrom = candidates.stream().mapToLong(WaitlistIndex.Entry::checkInDay).min().getAsLong();
+        long windowTo = candidates.stream().mapToLong(WaitlistIndex.Entry::checkOutDay).max().getAsLong();
+        LocalDateTime now = LocalDateTime.now();
+        TreeMap<Long, Long> taken = new TreeMap<>();
+        for (BookingRepository.Stay stay : bookingRepository.findConfirmedStays(roomId,
+                LocalDate.ofEpochDay(windowFrom), LocalDate.ofEpochDay(windowTo))) {
+            occupy(taken, stay.getCheckInDate().toEpochDay(), stay.getCheckOutDate().toEpochDay());
+        }
+        for (WaitlistEntry hold : waitlistRepository.findActiveHolds(roomId,
+                LocalDate.ofEpochDay(windowFrom), LocalDate.ofEpochDay(windowTo), now)) {
+            occupy(taken, hold.getCheckInDate().toEpochDay(), hold.getCheckOutDate().toEpochDay());
+        }
+
+        long today = LocalDate.now().toEpochDay();
+        List<WaitlistIndex.Entry> offered = new ArrayList<>();
+        List<Long> offeredIds = new ArrayList<>();
+        for (WaitlistIndex.Entry candidate : candidates) {
+            if (candidate.checkInDay() >= today && isFree(taken, candidate.checkInDay(), candidate.checkOutDay())) {
+                offered.add(candidate);
+                offeredIds.add(candidate.id());
+                occupy(taken, candidate.checkInDay(), candidate.checkOutDay());
+            }
+        }
+        if (offered.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime expiresAt = now.plusMinutes(holdMinutes);
+        waitlistRepository.markOffered(offeredIds, expiresAt);
+        long newVersion = bumpWaitlistVersion(roomId);
+        AfterCommit.run(() -> index.remove(roomId, newVersion, offered));
+        logger.info("🟢 Offered waitlist holds | roomId={} | entryIds={} | expiresAt={}", roomId, offeredIds,
+                expiresAt);
+    }
+
+    private long bumpWaitlistVersion(Long roomId) {
+        String versionKey = ChangeVersionService.roomWaitlist(roomId);
+        changeVersions.bump(versionKey);
+        return changeVersions.version(versionKey);
+    }
+
+    // Taken nights as disjoint [from, to) ranges keyed by start; touching ranges are merged
+    private static void occupy(TreeMap<Long, Long> taken, long from, long to) {
+        Map.Entry<Long, Long> before = taken.floorEntry(from);
+        if (before != null && before.getValue() >= from) {
+            from = before.getKey();
+            to = Math.max(to, before.getValue());
+            taken.remove(before.getKey());
+        }
+        Map.Entry<Long, Long> next;
+        while ((next = taken.ceilingEntry(from)) != null && next.getKey() <= to) {
+            to = Math.max(to, next.getValue());
+            taken.remove(next.getKey());
+        }
+        taken.put(from, to);
+    }
+
+    private static boolean isFree(TreeMap<Long, Long> taken, long from, long to) {
+        Map.Entry<Long, Long> last = taken.lowerEntry(to);
+        return last == null || last.getValue() <= from;
+    }
+
+    private static WaitlistIndex.Entry toIndexEntry(WaitlistEntry entry) {
+        return new WaitlistIndex.Entry(entry.getId(), entry.getUserId(), entry.getCheckInDate().toEpochDay(),
+                entry.getCheckOutDate().toEpochDay());
+    }
+}
@@ -0,0 +1,67 @@
+package com.nestly.server.simulator;
+
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Response-time model for the PayPal simulator.
+// Log-normal is the default shape for real network services: a median plus a long tail.
+public abstract class LatencyDistribution {
+
+    public abstract long sampleMillis();
+
+    public static LatencyDistribution fixed(long millis) {
+        return new LatencyDistribution() {
+            @Override
+            public long sampleMillis() {
+                return millis;
+            }
+        };
+    }
+
+    public static LatencyDistribution uniform(long minMillis, long maxMillis) {
+        return new LatencyDistribution() {
+            @Override
+            public long sampleMillis() {
+                return ThreadLocalRandom.current().nextLong(minMillis, Math.max(minMillis, maxMillis) + 1);
+            }
+        };
+    }
+
+    public static LatencyDistribution exponential(double meanMillis) {
+        return new LatencyDistribution() {
+            @Override
+            public long sampleMillis() {
+                double u = 1.0 - ThreadLocalRandom.current().nextDouble();
+                return Math.round(-meanMillis * Math.log(u));
+            }
+        };
+    }
+
+    // p99 = median * e^(2.326 * sigma), so sigma is derived from the requested p99
+    public static LatencyDistribution logNormal(double medianMillis, double p99Millis) {
+        double mu = Math.log(Math.max(medianMillis, 0.001));
+        double sigma = p99Millis > medianMillis ? Math.log(p99Millis / medianMillis) / 2.326 : 0.0;
+        return new LatencyDistribution() {
+            @Override
+            public long sampleMillis() {
+                return Math.round(Math.exp(mu + sigma * ThreadLocalRandom.current().nextGaussian()));
+            }
+        };
+    }
+
+    // ✅ Parses "fixed", "uniform", "exponential" or "lognormal" with the two parameters a/b
+    public static LatencyDistribution of(String type, double a, double b) {
+        switch (type.toLowerCase(Locale.ROOT)) {
+            case "fixed":
+                return fixed(Math.round(a));
+            case "uniform":
+                return uniform(Math.round(a), Math.round(b));
+            case "exponential":
+                return exponential(a);
+            case "lognormal":
+                return logNormal(a, b);
+            default:
+                throw new IllegalArgumentException("Unknown latency distribution: " + type);
+        }
+    }
+}
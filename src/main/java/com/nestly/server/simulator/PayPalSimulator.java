@@ -0,0 +1,277 @@
+package com.nestly.server.simulator;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Embeddable stand-in for the PayPal REST endpoints PayPalService uses.
+// Latency, error rate and throttling are configurable so checkout can be
+// load-tested without touching the sandbox.
+public class PayPalSimulator {
+
+    private static final Logger logger = LoggerFactory.getLogger(PayPalSimulator.class);
+
+    private static final Pattern CAPTURE_ORDER = Pattern.compile("^/v2/checkout/orders/([^/]+)/capture$");
+    private static final Pattern REFUND_CAPTURE = Pattern.compile("^/v2/payments/captures/([^/]+)/refund$");
+    private static final Pattern REFUND_STATUS = Pattern.compile("^/v2/payments/refunds/([^/]+)$");
+
+    // ✅ Simulator knobs
+    public static class Settings {
+        private int port = 0;
+        private LatencyDistribution latency = LatencyDistribution.fixed(0);
+        private double errorRate = 0.0;
+        private double maxRequestsPerSecond = 0; // 0 = unlimited
+        private long tokenExpiresInSeconds = 32400;
+        private double pendingRefundRate = 0.0;
+        private int workerThreads = 200;
+
+        public Settings port(int port) {
+            this.port = port;
+            return this;
+        }
+
+        public Settings latency(LatencyDistribution latency) {
+            this.latency = latency;
+            return this;
+        }
+
+        public Settings errorRate(double errorRate) {
+            this.errorRate = errorRate;
+            return this;
+        }
+
+        public Settings maxRequestsPerSecond(double maxRequestsPerSecond) {
+            this.maxRequestsPerSecond = maxRequestsPerSecond;
+            return this;
+        }
+
+        public Settings tokenExpiresInSeconds(long tokenExpiresInSeconds) {
+            this.tokenExpiresInSeconds = tokenExpiresInSeconds;
+            return this;
+        }
+
+        public Settings pendingRefundRate(double pendingRefundRate) {
+            this.pendingRefundRate = pendingRefundRate;
+            return this;
+        }
+
+        public Settings workerThreads(int workerThreads) {
+            this.workerThreads = workerThreads;
+            return this;
+        }
+    }
+
+    private final Settings settings;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final TokenBucket throttle;
+    private final Map<String, String> refunds = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Object>> refundsByRequestId = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> requestCounts = new ConcurrentHashMap<>();
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public PayPalSimulator(Settings settings) {
+        this.settings = settings;
+        this.throttle = settings.maxRequestsPerSecond > 0 ? new TokenBucket(settings.maxRequestsPerSecond) : null;
+    }
+
+    public synchronized void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", settings.port), 0);
+        executor = Executors.newFixedThreadPool(settings.workerThreads, r -> {
+            Thread t = new Thread(r, "paypal-sim");
+            t.setDaemon(true);
+            return t;
+        });
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+        logger.info("🧪 PayPal simulator listening on {}", getBaseUrl());
+    }
+
+    public synchronized void stop() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+            server = null;
+        }
+    }
+
+    public String getBaseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    public long getRequestCount(String endpoint) {
+        AtomicLong count = requestCounts.get(endpoint);
+        return count != null ? count.get() : 0;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String path = exchange.getRequestURI().getPath();
+            String method = exchange.getRequestMethod();
+            exchange.getRequestBody().readAllBytes();
+
+            String endpoint = endpointName(method, path);
+            requestCounts.computeIfAbsent(endpoint, k -> new AtomicLong()).incrementAndGet();
+
+            if (throttle != null && !throttle.tryAcquire()) {
+                respond(exchange, 429, Map.of("name", "RATE_LIMIT_REACHED",
+                        "message", "Too many requests. Blocked due to rate limiting."));
+                return;
+            }
+
+            sleep(settings.latency.sampleMillis());
+
+            if ("unknown".equals(endpoint)) {
+                respond(exchange, 404, Map.of("name", "RESOURCE_NOT_FOUND", "message", path));
+                return;
+            }
+            if (settings.errorRate > 0 && ThreadLocalRandom.current().nextDouble() < settings.errorRate) {
+                respond(exchange, 500, Map.of("name", "INTERNAL_SERVER_ERROR",
+                        "message", "An internal server error has occurred."));
+                return;
+            }
+
+            // Like PayPal, a refund retried with the same PayPal-Request-Id returns the original refund
+            String requestId = exchange.getRequestHeaders().getFirst("PayPal-Request-Id");
+            Map<String, Object> response = "refund".equals(endpoint) && requestId != null
+                    ? refundsByRequestId.computeIfAbsent(requestId, id -> buildResponse(endpoint, path))
+                    : buildResponse(endpoint, path);
+            respond(exchange, "create_order".equals(endpoint) || "refund".equals(endpoint) ? 201 : 200, response);
+        }
+    }
+
+    private String endpointName(String method, String path) {
+        if ("POST".equals(method) && "/v1/oauth2/token".equals(path)) {
+            return "token";
+        }
+        if ("POST".equals(method) && "/v2/checkout/orders".equals(path)) {
+            return "create_order";
+        }
+        if ("POST".equals(method) && CAPTURE_ORDER.matcher(path).matches()) {
+            return "capture_order";
+        }
+        if ("POST".equals(method) && REFUND_CAPTURE.matcher(path).matches()) {
+            return "refund";
+        }
+        if ("GET".equals(method) && REFUND_STATUS.matcher(path).matches()) {
+            return "refund_status";
+        }
+        return "unknown";
+    }
+
+    private Map<String, Object> buildResponse(String endpoint, String path) {
+        switch (endpoint) {
+            case "token":
+                return Map.of(
+                        "access_token", "SIM-" + UUID.randomUUID(),
+                        "token_type", "Bearer",
+                        "expires_in", settings.tokenExpiresInSeconds);
+            case "create_order": {
+                String orderId = newId();
+                return Map.of(
+                        "id", orderId,
+                        "status", "CREATED",
+                        "links", List.of(Map.of(
+                                "href", "http://localhost/checkoutnow?token=" + orderId,
+                                "rel", "approve",
+                                "method", "GET")));
+            }
+            case "capture_order": {
+                Matcher m = CAPTURE_ORDER.matcher(path);
+                m.matches();
+                return Map.of(
+                        "id", m.group(1),
+                        "status", "COMPLETED",
+                        "purchase_units", List.of(Map.of(
+                                "payments", Map.of(
+                                        "captures", List.of(Map.of("id", newId(), "status", "COMPLETED"))))));
+            }
+            case "refund": {
+                String refundId = newId();
+                String status = ThreadLocalRandom.current().nextDouble() < settings.pendingRefundRate
+                        ? "PENDING"
+                        : "COMPLETED";
+                refunds.put(refundId, status);
+                return Map.of("id", refundId, "status", status);
+            }
+            case "refund_status": {
+                Matcher m = REFUND_STATUS.matcher(path);
+                m.matches();
+                // Pending refunds settle the first time their status is looked up
+                String status = refunds.computeIfPresent(m.group(1), (id, s) -> "COMPLETED");
+                return Map.of("id", m.group(1), "status", status != null ? status : "COMPLETED");
+            }
+            default:
+                return Map.of();
+        }
+    }
+
+    private void respond(HttpExchange exchange, int status, Map<String, Object> body) throws IOException {
+        byte[] bytes = objectMapper.writeValueAsString(body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static String newId() {
+        return UUID.randomUUID().toString().replace("-", "").substring(0, 17).toUpperCase();
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Simple token bucket used to emulate PayPal's 429 throttling
+    private static final class TokenBucket {
+        private final double ratePerNano;
+        private final double capacity;
+        private double tokens;
+        private long lastRefill = System.nanoTime();
+
+        TokenBucket(double perSecond) {
+            this.ratePerNano = perSecond / TimeUnit.SECONDS.toNanos(1);
+            this.capacity = Math.max(1, perSecond);
+            this.tokens = capacity;
+        }
+
+        synchronized boolean tryAcquire() {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * ratePerNano);
+            lastRefill = now;
+            if (tokens >= 1) {
+                tokens -= 1;
+                return true;
+            }
+            return false;
+        }
+    }
+}
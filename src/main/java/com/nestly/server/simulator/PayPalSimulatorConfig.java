@@ -0,0 +1,32 @@
+package com.nestly.server.simulator;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+// Runs the PayPal simulator inside the app when the "paypal-sim" profile is active.
+// application-paypal-sim.properties points paypal.base.url at it.
+@Configuration
+@Profile("paypal-sim")
+public class PayPalSimulatorConfig {
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public PayPalSimulator payPalSimulator(
+            @Value("${paypal.simulator.port:8089}") int port,
+            @Value("${paypal.simulator.latency.distribution:lognormal}") String distribution,
+            @Value("${paypal.simulator.latency.a:150}") double latencyA,
+            @Value("${paypal.simulator.latency.b:600}") double latencyB,
+            @Value("${paypal.simulator.error-rate:0.0}") double errorRate,
+            @Value("${paypal.simulator.max-requests-per-second:0}") double maxRequestsPerSecond,
+            @Value("${paypal.simulator.token-expires-in-seconds:32400}") long tokenExpiresIn,
+            @Value("${paypal.simulator.pending-refund-rate:0.0}") double pendingRefundRate) {
+        return new PayPalSimulator(new PayPalSimulator.Settings()
+                .port(port)
+                .latency(LatencyDistribution.of(distribution, latencyA, latencyB))
+                .errorRate(errorRate)
+                .maxRequestsPerSecond(maxRequestsPerSecond)
+                .tokenExpiresInSeconds(tokenExpiresIn)
+                .pendingRefundRate(pendingRefundRate));
+    }
+}
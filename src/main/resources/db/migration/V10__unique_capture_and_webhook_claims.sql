@@ -0,0 +1,34 @@
+-- One booking per PayPal capture: the browser and the webhook may both try to create it,
+-- and only one insert may win.
+--
+-- Before this migration that race could store one capture twice. Per capture the first
+-- CONFIRMED booking (else the first booking) keeps it; every other booking of the capture
+-- is cancelled without a refund of its own (the one payment belongs to the kept booking)
+-- and its capture id is prefixed with DUPLICATE-<booking id>: so the pair stays traceable.
+-- Cancelled duplicates leave the rollups high until POST /api/analytics/rollups/rebuild.
+update bookings
+set status = 'CANCELLED',
+    refund_status = case when refund_status in ('PENDING', 'QUEUED') then 'NOT_APPLICABLE' else refund_status end,
+    paypal_capture_id = concat('DUPLICATE-', id, ':', paypal_capture_id)
+where id in (
+    -- distinct: materialized first, so MySQL allows reading the table being updated
+    select distinct d.id from (
+        select b.id from bookings b
+        where b.paypal_capture_id is not null
+          and exists (
+              select 1 from bookings k
+              where k.paypal_capture_id = b.paypal_capture_id
+                and k.id <> b.id
+                and ((coalesce(k.status, '') = 'CONFIRMED' and coalesce(b.status, '') <> 'CONFIRMED')
+                     or ((coalesce(k.status, '') = 'CONFIRMED') = (coalesce(b.status, '') = 'CONFIRMED')
+                         and k.id < b.id)))
+    ) d
+);
+
+drop index idx_bookings_capture on bookings;
+create unique index uk_bookings_capture on bookings (paypal_capture_id);
+
+-- Webhook consumers claim RECEIVED events (status = 'PROCESSING') before applying them, so
+-- two instances never apply the same event; a claim older than the lease is handed back.
+alter table paypal_webhook_events add column claimed_by varchar(64);
+alter table paypal_webhook_events add column claimed_at datetime(6);
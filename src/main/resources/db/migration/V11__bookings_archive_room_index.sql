@@ -0,0 +1,2 @@
+-- Room deletion checks the archive too: a room with archived history is retired, not deleted
+create index idx_bookings_archive_room on bookings_archive (room_id);
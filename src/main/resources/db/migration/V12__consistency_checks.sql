@@ -0,0 +1,36 @@
+-- Booking consistency check runs. Every instance schedules the check; the job_leases row
+-- lets only one of them run it at a time. Each run's summary and its issue details (capped)
+-- are stored here, so any instance can serve the latest report.
+
+create table job_leases (
+    name varchar(64) not null,
+    holder varchar(64),
+    expires_at datetime(6),
+    primary key (name)
+);
+
+insert into job_leases (name) values ('booking-consistency-check');
+
+create table consistency_checks (
+    id bigint not null auto_increment,
+    status varchar(20) not null, -- RUNNING, COMPLETED, FAILED
+    started_at datetime(6) not null,
+    completed_at datetime(6),
+    bookings_scanned bigint not null,
+    issue_counts varchar(1000), -- JSON object: issue type -> count (exact, never capped)
+    error varchar(1000),
+    primary key (id)
+);
+
+create table consistency_check_issues (
+    id bigint not null auto_increment,
+    check_id bigint not null,
+    type varchar(40) not null,
+    booking_id bigint not null,
+    room_id bigint not null,
+    details varchar(1000), -- JSON of the issue's other fields
+    primary key (id)
+);
+
+-- Issue listing per run, by type
+create index idx_consistency_check_issues_check on consistency_check_issues (check_id, type, id);
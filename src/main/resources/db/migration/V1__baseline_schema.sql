@@ -0,0 +1,44 @@
+-- Schema as previously created by spring.jpa.hibernate.ddl-auto=update.
+-- Existing databases are baselined at this version (spring.flyway.baseline-on-migrate).
+
+create table users (
+    id bigint not null auto_increment,
+    email varchar(255) not null,
+    enabled bit not null,
+    password varchar(255) not null,
+    role enum ('ADMIN','USER'),
+    username varchar(255) not null,
+    primary key (id),
+    constraint uk_users_email unique (email),
+    constraint uk_users_username unique (username)
+);
+
+create table rooms (
+    id bigint not null auto_increment,
+    address varchar(255),
+    available bit,
+    city varchar(255),
+    description varchar(255),
+    featured bit,
+    image_url varchar(255),
+    name varchar(255),
+    price float(53),
+    type varchar(255),
+    primary key (id)
+);
+
+create table bookings (
+    id bigint not null auto_increment,
+    amount float(53),
+    check_in_date date,
+    check_out_date date,
+    guests integer not null,
+    paypal_capture_id varchar(255),
+    refund_status varchar(255),
+    status varchar(255),
+    room_id bigint not null,
+    user_id bigint not null,
+    primary key (id),
+    constraint fk_bookings_room foreign key (room_id) references rooms (id),
+    constraint fk_bookings_user foreign key (user_id) references users (id)
+);
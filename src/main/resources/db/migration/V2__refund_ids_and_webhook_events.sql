@@ -0,0 +1,16 @@
+-- PayPal refund id for reconciliation, and the raw webhook event store.
+
+alter table bookings add column paypal_refund_id varchar(255);
+
+create table paypal_webhook_events (
+    id bigint not null auto_increment,
+    event_id varchar(255) not null,
+    event_type varchar(255),
+    payload longtext not null,
+    status varchar(255),
+    error varchar(1000),
+    received_at datetime(6),
+    processed_at datetime(6),
+    primary key (id),
+    constraint uk_paypal_webhook_events_event_id unique (event_id)
+);
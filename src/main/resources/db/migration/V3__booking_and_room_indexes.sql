@@ -0,0 +1,21 @@
+-- Covering indexes for the hot repository queries.
+
+-- Availability / overlap checks and booked dates: room_id + status equality, then the date range
+create index idx_bookings_room_status_dates on bookings (room_id, status, check_in_date, check_out_date);
+
+-- "My bookings", ordered by stay
+create index idx_bookings_user_checkin on bookings (user_id, check_in_date);
+
+-- Idempotent booking creation and webhooks look bookings up by PayPal capture
+create index idx_bookings_capture on bookings (paypal_capture_id);
+
+-- Refund reconciliation walks non-terminal refunds in id order
+create index idx_bookings_refund_status on bookings (refund_status, status, id);
+
+-- Catalog search by city and type, sorted by price
+create index idx_rooms_city_type_price on rooms (city, type, price);
+
+create index idx_rooms_featured on rooms (featured);
+
+-- Webhook consumer reads RECEIVED events oldest first
+create index idx_paypal_webhook_events_status on paypal_webhook_events (status, id);
@@ -0,0 +1,24 @@
+-- Cold storage for bookings whose stay ended before the archival horizon.
+-- Rows keep their original id; no foreign keys so archived history never blocks room or user changes.
+
+create table bookings_archive (
+    id bigint not null,
+    amount float(53),
+    check_in_date date,
+    check_out_date date,
+    guests integer not null,
+    paypal_capture_id varchar(255),
+    paypal_refund_id varchar(255),
+    refund_status varchar(255),
+    status varchar(255),
+    room_id bigint not null,
+    user_id bigint not null,
+    archived_at datetime(6) not null,
+    primary key (id)
+);
+
+-- User history reads
+create index idx_bookings_archive_user_checkin on bookings_archive (user_id, check_in_date);
+
+-- Archival job finds finished stays on the hot table
+create index idx_bookings_check_out on bookings (check_out_date);
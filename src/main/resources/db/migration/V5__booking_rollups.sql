@@ -0,0 +1,13 @@
+-- Per room and calendar month totals of CONFIRMED bookings, kept current by BookingService.
+-- City and all-rooms figures are sums over these rows, so dashboards never touch bookings.
+
+create table booking_rollups (
+    room_id bigint not null,
+    month_start date not null, -- first day of the month (MONTH is reserved in H2)
+    booked_nights integer not null,
+    bookings integer not null, -- counted in the check-in month
+    revenue double not null, -- split across months by nights
+    primary key (room_id, month_start)
+);
+
+create index idx_booking_rollups_month on booking_rollups (month_start, room_id);
@@ -0,0 +1,8 @@
+-- Version counters bumped on every write to rooms or bookings.
+-- Conditional GETs compare ETags against one primary-key read here instead of loading entities.
+
+create table change_counters (
+    name varchar(100) not null, -- rooms, room:{id}, room:{id}:bookings
+    version bigint not null,
+    primary key (name)
+);
@@ -0,0 +1,12 @@
+-- Change log behind CacheInvalidationBus: every write that affects a local cache appends a row,
+-- every instance tails the table by id. Rows are pruned after cache-invalidation.retention-minutes.
+
+create table cache_invalidations (
+    id bigint not null auto_increment,
+    cache_name varchar(50) not null,
+    cache_key varchar(255), -- null drops the whole cache
+    created_at datetime(6) not null,
+    primary key (id)
+);
+
+create index idx_cache_invalidations_created_at on cache_invalidations (created_at);
@@ -0,0 +1,23 @@
+-- Waitlist for fully booked rooms. When a cancellation frees nights, WaitlistService offers
+-- time-limited holds to overlapping WAITING entries in id (FIFO) order.
+-- No foreign keys, like bookings_archive: waitlist history never blocks room or user changes.
+
+create table waitlist_entries (
+    id bigint not null auto_increment,
+    user_id bigint not null,
+    room_id bigint not null,
+    check_in_date date not null,
+    check_out_date date not null,
+    status varchar(20) not null, -- WAITING, OFFERED, BOOKED, EXPIRED, CANCELLED
+    created_at datetime(6) not null,
+    hold_expires_at datetime(6), -- set while OFFERED
+    primary key (id)
+);
+
+-- Per-room index rebuilds (WAITING) and hold checks on a date range (OFFERED)
+create index idx_waitlist_room_status_dates on waitlist_entries (room_id, status, check_in_date, check_out_date);
+
+create index idx_waitlist_user on waitlist_entries (user_id, id);
+
+-- Hold expiry job
+create index idx_waitlist_status_hold on waitlist_entries (status, hold_expires_at);
@@ -0,0 +1,20 @@
+-- Admin "retire room": future bookings are cancelled in one transaction and marked
+-- refund_status = 'QUEUED'; their refunds are then sent in parallel. A retirement is
+-- REFUNDING until no QUEUED booking is left for the room; heartbeat_at is the lease of
+-- the instance sending them, so a stale one is resumed elsewhere.
+
+create table room_retirements (
+    id bigint not null auto_increment,
+    room_id bigint not null,
+    status varchar(20) not null, -- REFUNDING, COMPLETED
+    cancelled_bookings int not null,
+    refunds_requested int not null,
+    requested_at datetime(6) not null,
+    heartbeat_at datetime(6),
+    completed_at datetime(6),
+    primary key (id),
+    constraint uk_room_retirements_room unique (room_id)
+);
+
+-- Resume job: REFUNDING retirements whose lease ran out
+create index idx_room_retirements_status_heartbeat on room_retirements (status, heartbeat_at);
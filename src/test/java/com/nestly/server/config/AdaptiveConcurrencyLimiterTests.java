@@ -0,0 +1,71 @@
+package com.nestly.server.config;
+
+import com.nestly.server.config.AdaptiveConcurrencyLimiter.Priority;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimiterTests {
+
+    @Test
+    void lowerPrioritiesAreShedFirst() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 100, 2.0, 100, 0.5, 0.8);
+
+        assertThat(acquireAll(limiter, Priority.LOW)).isEqualTo(5);
+        assertThat(acquireAll(limiter, Priority.NORMAL)).isEqualTo(3);
+        assertThat(acquireAll(limiter, Priority.CRITICAL)).isEqualTo(2);
+    }
+
+    @Test
+    void limitGrowsWhileLatencyIsStable() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 100, 2.0, 10, 0.5, 0.8);
+
+        for (int window = 0; window < 20; window++) {
+            runWindow(limiter, 5);
+        }
+
+        assertThat(limiter.getLimit()).isGreaterThan(10);
+    }
+
+    @Test
+    void limitShrinksWhenLatencyRises() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(50, 1, 100, 2.0, 10, 0.5, 0.8);
+        for (int window = 0; window < 5; window++) {
+            runWindow(limiter, 5);
+        }
+        int before = limiter.getLimit();
+
+        for (int window = 0; window < 5; window++) {
+            runWindow(limiter, 50);
+        }
+
+        assertThat(limiter.getLimit()).isLessThan(before);
+    }
+
+    @Test
+    void checkoutRoutesAreCriticalAndAdminListingsLow() {
+        assertThat(ConcurrencyLimitFilter.classify("POST", "/api/bookings/create")).isEqualTo(Priority.CRITICAL);
+        assertThat(ConcurrencyLimitFilter.classify("POST", "/api/paypal/capture-order/X1")).isEqualTo(Priority.CRITICAL);
+        assertThat(ConcurrencyLimitFilter.classify("GET", "/api/rooms")).isEqualTo(Priority.NORMAL);
+        assertThat(ConcurrencyLimitFilter.classify("GET", "/api/bookings")).isEqualTo(Priority.LOW);
+        assertThat(ConcurrencyLimitFilter.classify("GET", "/api/analytics/occupancy")).isEqualTo(Priority.LOW);
+    }
+
+    private static int acquireAll(AdaptiveConcurrencyLimiter limiter, Priority priority) {
+        int acquired = 0;
+        while (limiter.tryAcquire(priority)) {
+            acquired++;
+        }
+        return acquired;
+    }
+
+    // Fills the limit with critical requests and completes them all with the given latency
+    private static void runWindow(AdaptiveConcurrencyLimiter limiter, long latencyMillis) {
+        int acquired = acquireAll(limiter, Priority.CRITICAL);
+        for (int i = 0; i < acquired; i++) {
+            limiter.release(TimeUnit.MILLISECONDS.toNanos(latencyMillis));
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.nestly.server.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import jakarta.servlet.http.Cookie;
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Two embedded H2 databases stand in for the primary and the replica;
+// each holds a marker row naming itself so the test can see where a query went.
+class ReadWriteRoutingDataSourceTests {
+
+    private JdbcTemplate jdbc;
+    private TransactionTemplate writeTx;
+    private TransactionTemplate readOnlyTx;
+
+    @BeforeEach
+    void setUp() {
+        DataSource primary = embedded("primary");
+        DataSource replica = embedded("replica");
+        DataSource routing = new LazyConnectionDataSourceProxy(
+                new ReadWriteRoutingDataSource(primary, replica, new ReplicaLagGuard(60_000)));
+
+        DataSourceTransactionManager txManager = new DataSourceTransactionManager(routing);
+        jdbc = new JdbcTemplate(routing);
+        writeTx = new TransactionTemplate(txManager);
+        readOnlyTx = new TransactionTemplate(txManager);
+        readOnlyTx.setReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void readOnlyTransactionsGoToReplica() {
+        assertThat(readInReadOnlyTx()).isEqualTo("replica");
+    }
+
+    @Test
+    void writeTransactionsGoToPrimary() {
+        assertThat(readInWriteTx()).isEqualTo("primary");
+    }
+
+    @Test
+    void clientIsPinnedToPrimaryAfterItsOwnWrite() {
+        MockHttpServletResponse writeResponse = startRequest();
+        writeTx.executeWithoutResult(status -> jdbc.update("update marker set touched = true"));
+        assertThat(readInReadOnlyTx()).isEqualTo("primary");
+
+        // The next request may hit another instance: only the cookie carries the pin
+        Cookie pin = writeResponse.getCookie(ReplicaLagGuard.COOKIE_NAME);
+        assertThat(pin).isNotNull();
+        startRequest(pin);
+        assertThat(readInReadOnlyTx()).isEqualTo("primary");
+
+        startRequest();
+        assertThat(readInReadOnlyTx()).isEqualTo("replica");
+    }
+
+    @Test
+    void forgedLongPinIsIgnored() {
+        startRequest(new Cookie(ReplicaLagGuard.COOKIE_NAME, Long.toString(Long.MAX_VALUE)));
+        assertThat(readInReadOnlyTx()).isEqualTo("replica");
+    }
+
+    private String readInReadOnlyTx() {
+        return readOnlyTx.execute(status -> whereAmI());
+    }
+
+    private String readInWriteTx() {
+        return writeTx.execute(status -> whereAmI());
+    }
+
+    private String whereAmI() {
+        return jdbc.queryForObject("select name from marker", String.class);
+    }
+
+    private static DataSource embedded(String name) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + name + "-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("create table marker (name varchar(16), touched boolean default false)");
+        jdbc.update("insert into marker (name) values (?)", name);
+        return dataSource;
+    }
+
+    private static MockHttpServletResponse startRequest(Cookie... cookies) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        if (cookies.length > 0) {
+            request.setCookies(cookies);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, response));
+        return response;
+    }
+}
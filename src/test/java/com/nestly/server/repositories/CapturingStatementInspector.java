@@ -0,0 +1,31 @@
+package com.nestly.server.repositories;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Records every SQL statement Hibernate prepares so tests can EXPLAIN the exact
+// queries the repositories generate.
+public class CapturingStatementInspector implements StatementInspector {
+
+    private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+    @Override
+    public String inspect(String sql) {
+        STATEMENTS.add(sql);
+        return sql;
+    }
+
+    public static void clear() {
+        STATEMENTS.clear();
+    }
+
+    // ✅ First statement is the repository query itself; eager associations may follow it
+    public static String firstSelect() {
+        return STATEMENTS.stream()
+                .filter(sql -> sql.trim().toLowerCase().startsWith("select"))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("No SELECT captured"));
+    }
+}
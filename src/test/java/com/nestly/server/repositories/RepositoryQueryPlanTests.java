@@ -0,0 +1,172 @@
+package com.nestly.server.repositories;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Runs the Flyway migrations on an embedded H2 (MySQL mode), executes each hot repository
+// query, then EXPLAINs the SQL Hibernate generated. A plan containing a table scan means a
+// migration is missing an index for that query.
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:plans;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.nestly.server.repositories.CapturingStatementInspector"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class RepositoryQueryPlanTests {
+
+    private static final LocalDate CHECK_IN = LocalDate.of(2030, 1, 10);
+    private static final LocalDate CHECK_OUT = LocalDate.of(2030, 1, 15);
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private ArchivedBookingRepository archivedBookingRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PayPalWebhookEventRepository webhookEventRepository;
+
+    @Autowired
+    private WaitlistEntryRepository waitlistRepository;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void clearCapturedStatements() {
+        CapturingStatementInspector.clear();
+    }
+
+    @Test
+    void bookingsByRoomAndStatusUseIndex() {
+        bookingRepository.findByRoomIdAndStatus(1L, "CONFIRMED");
+        assertNoTableScan(1L, "CONFIRMED");
+    }
+
+    @Test
+    void overlapCheckUsesIndex() {
+        bookingRepository.existsOverlappingBooking(1L, CHECK_IN, CHECK_OUT);
+        assertNoTableScan(1L, CHECK_OUT, CHECK_IN);
+    }
+
+    @Test
+    void bookingsByUserUseIndex() {
+        bookingRepository.findByUserId(1L);
+        assertNoTableScan(1L);
+    }
+
+    @Test
+    void bookingByCaptureIdUsesIndex() {
+        bookingRepository.findFirstByPaypalCaptureId("CAPTURE-1");
+        assertNoTableScan("CAPTURE-1");
+    }
+
+    @Test
+    void pendingRefundsUseIndex() {
+        bookingRepository.findPendingRefunds(List.of("PENDING", "REQUESTED"), 0L, PageRequest.of(0, 10));
+        assertNoTableScan("PENDING", "REQUESTED", 0L);
+    }
+
+    @Test
+    void archivableBookingsUseIndex() {
+        bookingRepository.findArchivableIds(CHECK_IN, 0L, PageRequest.of(0, 10));
+        assertNoTableScan(CHECK_IN, 0L);
+    }
+
+    @Test
+    void archivedBookingsByUserUseIndex() {
+        archivedBookingRepository.findByUserId(1L);
+        assertNoTableScan(1L);
+    }
+
+    @Test
+    void archivedBookingsByRoomUseIndex() {
+        archivedBookingRepository.existsByRoomId(1L);
+        assertNoTableScan(1L);
+    }
+
+    @Test
+    void featuredRoomsUseIndex() {
+        roomRepository.findByFeaturedTrue();
+        assertNoTableScan();
+    }
+
+    @Test
+    void usersByEmailAndUsernameUseIndex() {
+        userRepository.findByEmail("guest@nestly.com");
+        assertNoTableScan("guest@nestly.com");
+
+        CapturingStatementInspector.clear();
+        userRepository.findByUsername("guest");
+        assertNoTableScan("guest");
+    }
+
+    @Test
+    void pendingWebhookEventsUseIndex() {
+        webhookEventRepository.findByStatusOrderByIdAsc("RECEIVED", PageRequest.of(0, 10));
+        assertNoTableScan("RECEIVED");
+    }
+
+    @Test
+    void confirmedStaysUseIndex() {
+        bookingRepository.findConfirmedStays(1L, CHECK_IN, CHECK_OUT);
+        assertNoTableScan(1L, CHECK_OUT, CHECK_IN);
+    }
+
+    @Test
+    void queuedRetirementRefundsUseIndex() {
+        bookingRepository.findQueuedRefunds(1L, 0L, PageRequest.of(0, 10));
+        assertNoTableScan(1L, 0L);
+    }
+
+    @Test
+    void queuedRefundsUseIndex() {
+        bookingRepository.findAllQueuedRefunds(0L, PageRequest.of(0, 10));
+        assertNoTableScan(0L);
+    }
+
+    @Test
+    void waitlistHoldCheckUsesIndex() {
+        LocalDateTime now = LocalDateTime.of(2030, 1, 1, 12, 0);
+        waitlistRepository.existsHoldForOtherUser(1L, CHECK_IN, CHECK_OUT, 2L, now);
+        assertNoTableScan(1L, CHECK_OUT, CHECK_IN, now, 2L);
+    }
+
+    // Binds args in placeholder order; any remaining placeholders are LIMIT/OFFSET values
+    private void assertNoTableScan(Object... args) {
+        String sql = CapturingStatementInspector.firstSelect();
+        List<Object> params = new ArrayList<>(Arrays.asList(args));
+        long placeholders = sql.chars().filter(c -> c == '?').count();
+        while (params.size() < placeholders) {
+            params.add(10);
+        }
+        String plan = jdbc.queryForObject("EXPLAIN " + sql, String.class, params.toArray());
+        assertThat(plan)
+                .as("Query plan for: %s", sql)
+                .doesNotContainIgnoringCase("tableScan");
+    }
+}
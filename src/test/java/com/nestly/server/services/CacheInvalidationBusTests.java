@@ -0,0 +1,95 @@
+package com.nestly.server.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Two buses on one embedded H2 database stand in for two app instances.
+class CacheInvalidationBusTests {
+
+    private JdbcTemplate jdbc;
+    private TransactionTemplate tx;
+    private CacheInvalidationBus writer;
+    private CacheInvalidationBus reader;
+    private LocalCache<String> readerCache;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:invalidations-" + UUID.randomUUID() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                "sa", "");
+        jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("create table cache_invalidations (id bigint not null auto_increment, "
+                + "cache_name varchar(50) not null, cache_key varchar(255), created_at datetime(6) not null, "
+                + "primary key (id))");
+        tx = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+        writer = new CacheInvalidationBus(jdbc, 500, 10_000, 60_000, 60);
+        reader = new CacheInvalidationBus(jdbc, 500, 10_000, 60_000, 60);
+        readerCache = reader.register("users", new LocalCache<>(100));
+        reader.poll(); // starts at the head of the log
+        readerCache.get("a", () -> "cached");
+    }
+
+    @Test
+    void otherInstancesDropTheKeyOnTheirNextPoll() {
+        tx.executeWithoutResult(status -> writer.publish("users", "a"));
+        assertThat(readerCache.size()).isEqualTo(1);
+
+        reader.poll();
+
+        assertThat(readerCache.size()).isZero();
+    }
+
+    @Test
+    void writerDropsItsOwnEntryOnCommit() {
+        LocalCache<String> writerCache = writer.register("users", new LocalCache<>(100));
+        writerCache.get("a", () -> "cached");
+
+        tx.executeWithoutResult(status -> writer.publish("users", "a"));
+
+        assertThat(writerCache.size()).isZero();
+    }
+
+    @Test
+    void rowCommittedLateBehindAHigherIdIsStillApplied() {
+        readerCache.get("b", () -> "cached");
+        insert(2, "a");
+
+        reader.poll();
+        assertThat(readerCache.size()).isEqualTo(1); // only "b" is left
+
+        // Id 1 belonged to a transaction that committed after id 2 was already seen
+        insert(1, "b");
+        reader.poll();
+
+        assertThat(readerCache.size()).isZero();
+    }
+
+    @Test
+    void instanceTooFarBehindFlushesEverything() {
+        CacheInvalidationBus lagging = new CacheInvalidationBus(jdbc, 500, 2, 60_000, 60);
+        LocalCache<String> laggingCache = lagging.register("users", new LocalCache<>(100));
+        lagging.poll();
+        laggingCache.get("untouched", () -> "cached");
+        for (int i = 1; i <= 3; i++) {
+            insert(i, "other-" + i);
+        }
+
+        lagging.poll();
+
+        assertThat(laggingCache.size()).isZero();
+    }
+
+    private void insert(long id, String key) {
+        jdbc.update("insert into cache_invalidations (id, cache_name, cache_key, created_at) "
+                + "values (?, 'users', ?, current_timestamp)", id, key);
+    }
+}
@@ -0,0 +1,41 @@
+package com.nestly.server.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ImageNameSetTests {
+
+    @Test
+    void matchesFileNamesOfStoredUrls() {
+        ImageNameSet names = new ImageNameSet(2);
+        names.add("/images/3c6ec612-617b-4b02-8f82-37d5fc17dd3d.jpg");
+        names.add("uploads\\legacy.png");
+        names.add("https://cdn.example.com/rooms/hero.webp?v=3");
+        names.add(null);
+
+        assertThat(names.size()).isEqualTo(3);
+        assertThat(names.contains("3c6ec612-617b-4b02-8f82-37d5fc17dd3d.jpg")).isTrue();
+        assertThat(names.contains("legacy.png")).isTrue();
+        assertThat(names.contains("hero.webp")).isTrue();
+        assertThat(names.contains("orphan.jpg")).isFalse();
+    }
+
+    @Test
+    void growsWithoutLosingNames() {
+        ImageNameSet names = new ImageNameSet(0);
+        String[] added = new String[10_000];
+        for (int i = 0; i < added.length; i++) {
+            added[i] = UUID.randomUUID() + ".jfif";
+            names.add("/images/" + added[i]);
+        }
+
+        assertThat(names.size()).isEqualTo(added.length);
+        for (String name : added) {
+            assertThat(names.contains(name)).isTrue();
+        }
+        assertThat(names.contains(UUID.randomUUID() + ".jfif")).isFalse();
+    }
+}
@@ -0,0 +1,112 @@
+package com.nestly.server.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Only a definitive PayPal rejection may turn a queued refund into FAILED; everything
+// else must be thrown so the booking stays QUEUED and is resent with the same request id.
+class PayPalRefundTests {
+
+    private StubHttpClient httpClient;
+    private PayPalService payPalService;
+
+    @BeforeEach
+    void setUp() {
+        httpClient = new StubHttpClient();
+        payPalService = new PayPalService(httpClient);
+        ReflectionTestUtils.setField(payPalService, "baseUrl", "http://paypal.test");
+        ReflectionTestUtils.setField(payPalService, "currency", "USD");
+        ReflectionTestUtils.setField(payPalService, "tokenExpirySkewSeconds", 60L);
+        ReflectionTestUtils.setField(payPalService, "tokenRefreshAheadSeconds", 300L);
+        ReflectionTestUtils.setField(payPalService, "tokenDefaultLifetimeSeconds", 3600L);
+        payPalService.initTokenCache();
+    }
+
+    @AfterEach
+    void tearDown() {
+        payPalService.shutdownTokenCache();
+    }
+
+    @Test
+    void businessRejectionIsFailed() {
+        httpClient.refundOutcomes.add(new PayPalClientException("refund", 422, "CAPTURE_FULLY_REFUNDED"));
+
+        PayPalService.RefundResult result = payPalService.refund("CAPTURE-1", 50, "request-1");
+
+        assertThat(result.getStatus()).isEqualTo("FAILED");
+        assertThat(result.getRefundId()).isNull();
+    }
+
+    @Test
+    void transientRejectionsAreThrown() {
+        httpClient.refundOutcomes.add(new PayPalClientException("refund", 429, "RATE_LIMIT_REACHED"));
+        httpClient.refundOutcomes.add(new PayPalClientException("refund", 409, null));
+        httpClient.refundOutcomes.add(new PayPalClientException("refund", 422, "PREVIOUS_REQUEST_IN_PROGRESS"));
+
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> payPalService.refund("CAPTURE-1", 50, "request-1"))
+                    .isInstanceOf(PayPalClientException.class);
+        }
+    }
+
+    @Test
+    void expiredTokenIsRefreshedAndRetriedOnce() {
+        httpClient.refundOutcomes.add(new PayPalClientException("refund", 401, null));
+        httpClient.refundOutcomes.add(Map.of("id", "REFUND-1", "status", "COMPLETED"));
+
+        PayPalService.RefundResult result = payPalService.refund("CAPTURE-1", 50, "request-1");
+
+        assertThat(result.getStatus()).isEqualTo("COMPLETED");
+        assertThat(httpClient.tokenFetches).isEqualTo(2);
+    }
+
+    @Test
+    void secondUnauthorizedIsThrown() {
+        httpClient.refundOutcomes.add(new PayPalClientException("refund", 401, null));
+        httpClient.refundOutcomes.add(new PayPalClientException("refund", 401, null));
+
+        assertThatThrownBy(() -> payPalService.refund("CAPTURE-1", 50, "request-1"))
+                .isInstanceOf(PayPalClientException.class);
+        assertThat(httpClient.refundOutcomes).isEmpty();
+    }
+
+    // ✅ Hands out tokens and replays the queued refund outcomes in order
+    private static final class StubHttpClient extends PayPalHttpClient {
+
+        private final Deque<Object> refundOutcomes = new ArrayDeque<>();
+        private int tokenFetches;
+
+        StubHttpClient() {
+            super(new ObjectMapper(), new SimpleMeterRegistry(), 1000, 1000, 1, 0, 20, 10, 50, 30_000, 3);
+        }
+
+        @Override
+        public Map<String, Object> postForm(String operation, String url, String clientId, String clientSecret,
+                String form) {
+            tokenFetches++;
+            return Map.of("access_token", "token-" + tokenFetches, "expires_in", 32_400);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Map<String, Object> postJson(String operation, String url, String accessToken, Object body,
+                String requestId) {
+            Object outcome = refundOutcomes.poll();
+            if (outcome instanceof RuntimeException e) {
+                throw e;
+            }
+            return (Map<String, Object>) outcome;
+        }
+    }
+}
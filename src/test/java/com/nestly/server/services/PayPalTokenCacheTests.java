@@ -0,0 +1,30 @@
+package com.nestly.server.services;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PayPalTokenCacheTests {
+
+    // A caller that saw an expired token, but wins the single-flight only after another
+    // caller's fetch completed, must reuse that token instead of fetching again
+    @Test
+    void lateRefreshReusesTokenFetchedMeanwhile() {
+        AtomicInteger fetches = new AtomicInteger();
+        PayPalTokenCache cache = new PayPalTokenCache(
+                () -> new PayPalTokenCache.AccessToken("token-" + fetches.incrementAndGet(), 3600), 60, 300);
+        try {
+            assertThat(cache.getToken()).isEqualTo("token-1");
+
+            PayPalTokenCache.AccessToken late = ReflectionTestUtils.invokeMethod(cache, "refresh", false);
+
+            assertThat(late.getValue()).isEqualTo("token-1");
+            assertThat(fetches).hasValue(1);
+        } finally {
+            cache.shutdown();
+        }
+    }
+}
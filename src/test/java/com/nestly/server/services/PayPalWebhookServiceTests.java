@@ -0,0 +1,112 @@
+package com.nestly.server.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nestly.server.models.Booking;
+import com.nestly.server.models.PayPalWebhookEvent;
+import com.nestly.server.repositories.PayPalWebhookEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PayPalWebhookServiceTests {
+
+    private static final String ORPHANED_CAPTURE = "{\"id\":\"WH-1\",\"event_type\":\"PAYMENT.CAPTURE.COMPLETED\","
+            + "\"resource\":{\"id\":\"CAPTURE-1\",\"custom_id\":\"booking:7:3:2030-01-10:2030-01-12\","
+            + "\"amount\":{\"value\":\"240.00\",\"currency_code\":\"USD\"}}}";
+
+    @Test
+    void orphanedCaptureForTakenDatesIsRefunded() {
+        Map<Long, PayPalWebhookEvent> events = new TreeMap<>();
+        events.put(1L, PayPalWebhookEvent.builder()
+                .id(1L)
+                .eventId("WH-1")
+                .eventType(PayPalWebhookService.CAPTURE_COMPLETED)
+                .payload(ORPHANED_CAPTURE)
+                .status("RECEIVED")
+                .receivedAt(LocalDateTime.now())
+                .build());
+        ConflictingBookings bookings = new ConflictingBookings();
+        PayPalWebhookService service = new PayPalWebhookService(eventRepository(events), bookings, null,
+                new ObjectMapper(), 4, 200, 300_000);
+
+        service.processPending();
+
+        assertThat(bookings.refunded).containsExactly("7:3:2030-01-10:2030-01-12:CAPTURE-1:240.0");
+        assertThat(events.get(1L).getStatus()).isEqualTo("PROCESSED");
+    }
+
+    // ✅ Every stay is already taken; refunds are only recorded
+    private static final class ConflictingBookings extends BookingService {
+
+        private final List<String> refunded = new ArrayList<>();
+
+        ConflictingBookings() {
+            super(null, null, null, null, null, null, null, null, null, new SimpleMeterRegistry());
+        }
+
+        @Override
+        public Optional<Booking> getBookingByCaptureId(String paypalCaptureId) {
+            return Optional.empty();
+        }
+
+        @Override
+        public Booking createBooking(Long userId, Long roomId, String checkInDateStr, String checkOutDateStr,
+                String paypalCaptureId, Double amount) {
+            throw new BookingConflictException("Room already booked for selected dates");
+        }
+
+        @Override
+        public Booking refundUnbookableCapture(Long userId, Long roomId, String checkInDateStr,
+                String checkOutDateStr, String paypalCaptureId, Double amount, String reason) {
+            refunded.add(userId + ":" + roomId + ":" + checkInDateStr + ":" + checkOutDateStr + ":"
+                    + paypalCaptureId + ":" + amount);
+            return Booking.builder().id(99L).status("CANCELLED").refundStatus("QUEUED").build();
+        }
+    }
+
+    // ✅ Only the calls processPending makes; anything else fails loudly
+    @SuppressWarnings("unchecked")
+    private static PayPalWebhookEventRepository eventRepository(Map<Long, PayPalWebhookEvent> events) {
+        return (PayPalWebhookEventRepository) Proxy.newProxyInstance(
+                PayPalWebhookEventRepository.class.getClassLoader(),
+                new Class<?>[] { PayPalWebhookEventRepository.class },
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "releaseStaleClaims":
+                            return 0;
+                        case "findByStatusOrderByIdAsc":
+                            return events.values().stream().filter(e -> args[0].equals(e.getStatus())).toList();
+                        case "claim":
+                            for (Long id : (Collection<Long>) args[0]) {
+                                events.get(id).setStatus("PROCESSING");
+                                events.get(id).setClaimedBy((String) args[1]);
+                            }
+                            return ((Collection<Long>) args[0]).size();
+                        case "findByIdInAndClaimedByOrderByIdAsc":
+                            return events.values().stream()
+                                    .filter(e -> ((Collection<Long>) args[0]).contains(e.getId())
+                                            && args[1].equals(e.getClaimedBy()))
+                                    .toList();
+                        case "markProcessed":
+                            for (Long id : (Collection<Long>) args[0]) {
+                                events.get(id).setStatus((String) args[1]);
+                            }
+                            return ((Collection<Long>) args[0]).size();
+                        case "save":
+                            return args[0];
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+}
@@ -0,0 +1,59 @@
+package com.nestly.server.services;
+
+import com.nestly.server.models.Room;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RoomSimilarityTableTests {
+
+    private static Room room(long id, String city, String type, double price) {
+        Room room = new Room("Room " + id, type, price, false, "", "/images/" + id + ".jpg", true, city, "");
+        room.setId(id);
+        return room;
+    }
+
+    private static List<Long> ids(List<Room> rooms) {
+        return rooms.stream().map(Room::getId).toList();
+    }
+
+    @Test
+    void ranksSameCityTypeAndPriceFirst() {
+        List<Room> rooms = List.of(
+                room(1, "Goa", "Villa", 200),
+                room(2, "Goa", "Villa", 210),
+                room(3, "Goa", "Hostel", 20),
+                room(4, "Pune", "Villa", 200),
+                room(5, "Goa", "Villa", 900));
+        RoomSimilarityTable table = RoomSimilarityTable.build(1L, rooms, 3, ForkJoinPool.commonPool());
+
+        assertThat(ids(table.similar(1L))).containsExactly(2L, 5L, 3L);
+        assertThat(table.similar(42L)).isEmpty();
+    }
+
+    @Test
+    void incrementalChangesMatchAFullBuild() {
+        List<Room> rooms = new ArrayList<>();
+        String[] cities = { "Goa", "Pune", "Ooty" };
+        String[] types = { "Villa", "Hostel" };
+        for (long id = 1; id <= 300; id++) {
+            rooms.add(room(id, cities[(int) (id % 3)], types[(int) (id % 2)], 50 + (id * 37) % 400));
+        }
+        RoomSimilarityTable table = RoomSimilarityTable.build(1L, rooms, 5, ForkJoinPool.commonPool());
+
+        Room added = room(301, "Goa", "Villa", 120);
+        table = table.withRoom(2L, added).withoutRoom(3L, 7L);
+        rooms.add(added);
+        rooms.removeIf(r -> r.getId() == 7L);
+        RoomSimilarityTable rebuilt = RoomSimilarityTable.build(3L, rooms, 5, ForkJoinPool.commonPool());
+
+        assertThat(table.version()).isEqualTo(3L);
+        for (Room room : rooms) {
+            assertThat(ids(table.similar(room.getId()))).isEqualTo(ids(rebuilt.similar(room.getId())));
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.nestly.server.services;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RoomSuggestIndexTests {
+
+    @Test
+    void ranksByRoomCountThenPopularity() {
+        RoomSuggestIndex index = new RoomSuggestIndex(1L);
+        index.put(1L, "Hyderabad", "Road 12, Banjara Hills", "Hilltop Suite", 5);
+        index.put(2L, "Hyderabad", "Jubilee Hills", "Harbour Loft", 1);
+        index.put(3L, "Hampi", "Hampi Bazaar", "Heritage Stay", 40);
+
+        assertThat(index.suggest("h", 3).get(0).text()).isEqualTo("Hyderabad");
+        assertThat(index.suggest("ha", 3))
+                .extracting(RoomSuggestIndex.Suggestion::text)
+                .endsWith("Harbour Loft")
+                .contains("Hampi", "Hampi Bazaar")
+                .hasSize(3);
+        assertThat(index.suggest("HILLS", 5))
+                .extracting(RoomSuggestIndex.Suggestion::text)
+                .containsExactly("Road 12, Banjara Hills", "Jubilee Hills");
+    }
+
+    @Test
+    void appliesIncrementalChangesInVersionOrder() {
+        RoomSuggestIndex index = new RoomSuggestIndex(7L);
+        index.put(1L, "Goa", "Calangute Beach", "Sea View", 0);
+
+        assertThat(index.roomAdded(8L, 2L, "Gokarna", "Om Beach", "Cliff House")).isTrue();
+        assertThat(index.suggest("go", 5)).extracting(RoomSuggestIndex.Suggestion::text)
+                .containsExactlyInAnyOrder("Goa", "Gokarna");
+
+        assertThat(index.roomRemoved(9L, 1L)).isTrue();
+        assertThat(index.suggest("go", 5)).extracting(RoomSuggestIndex.Suggestion::text)
+                .containsExactly("Gokarna");
+
+        // Version 10 happened elsewhere: the index must be rebuilt instead
+        assertThat(index.roomRemoved(11L, 2L)).isFalse();
+        assertThat(index.version()).isEqualTo(9L);
+    }
+}
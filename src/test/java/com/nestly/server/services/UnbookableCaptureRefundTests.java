@@ -0,0 +1,89 @@
+package com.nestly.server.services;
+
+import com.nestly.server.models.Booking;
+import com.nestly.server.repositories.BookingRepository;
+import com.nestly.server.repositories.RoomRepository;
+import com.nestly.server.repositories.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// A capture the PayPal webhook cannot turn into a stay is recorded once, as a CANCELLED
+// booking whose refund is sent with the booking's PayPal-Request-Id.
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:unbookable;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=none"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // each call commits, as it does in the webhook consumer
+class UnbookableCaptureRefundTests {
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Test
+    void recordsCancelledBookingAndRefundsItOnce() {
+        jdbc.update("insert into users (id, email, enabled, password, role, username) "
+                + "values (7, 'guest@nestly.com', true, 'x', 'USER', 'guest')");
+        jdbc.update("insert into rooms (id, name, type, price, featured, available, city) "
+                + "values (3, 'Room 3', 'Standard', 120, false, true, 'Lisbon')");
+        RecordingPayPal payPal = new RecordingPayPal();
+        BookingService bookingService = new BookingService(bookingRepository, null, roomRepository,
+                userRepository, payPal, null, null, null, transactionManager, new SimpleMeterRegistry());
+
+        Booking first = bookingService.refundUnbookableCapture(7L, 3L, "2030-01-10", "2030-01-12", "CAPTURE-1",
+                240.0, "Room already booked for selected dates");
+        Booking again = bookingService.refundUnbookableCapture(7L, 3L, "2030-01-10", "2030-01-12", "CAPTURE-1",
+                240.0, "Room already booked for selected dates");
+
+        assertThat(again.getId()).isEqualTo(first.getId());
+        assertThat(first.getStatus()).isEqualTo("CANCELLED");
+        assertThat(payPal.requestIds).containsExactly(PayPalService.refundRequestId(first.getId()));
+        assertThat(jdbc.queryForObject("select refund_status from bookings where id = ?", String.class,
+                first.getId())).isEqualTo("COMPLETED");
+        assertThat(jdbc.queryForObject("select count(*) from bookings", Integer.class)).isEqualTo(1);
+    }
+
+    // ✅ Every refund succeeds; only the request ids are kept
+    private static final class RecordingPayPal extends PayPalService {
+
+        private final List<String> requestIds = new ArrayList<>();
+
+        RecordingPayPal() {
+            super(null);
+        }
+
+        @Override
+        public RefundResult refund(String captureId, double amount, String requestId) {
+            requestIds.add(requestId);
+            return new RefundResult("REFUND-" + requestIds.size(), "COMPLETED");
+        }
+    }
+}
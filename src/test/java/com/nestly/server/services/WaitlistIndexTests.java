@@ -0,0 +1,47 @@
+package com.nestly.server.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WaitlistIndexTests {
+
+    private static WaitlistIndex.Entry entry(long id, long checkIn, long checkOut) {
+        return new WaitlistIndex.Entry(id, 100 + id, checkIn, checkOut);
+    }
+
+    @Test
+    void returnsOnlyOverlappingEntriesOldestFirst() {
+        WaitlistIndex index = new WaitlistIndex();
+        index.load(1L, 1L, List.of(
+                entry(3, 10, 12),
+                entry(1, 20, 25),
+                entry(2, 5, 30),
+                entry(4, 14, 15),
+                entry(5, 8, 10)));
+
+        assertThat(index.overlapping(1L, 10, 15))
+                .extracting(WaitlistIndex.Entry::id)
+                .containsExactly(2L, 3L, 4L);
+    }
+
+    @Test
+    void appliesChangesOnlyOnTopOfTheirVersion() {
+        WaitlistIndex index = new WaitlistIndex();
+        index.load(1L, 4L, List.of(entry(1, 10, 12)));
+
+        index.add(1L, 5L, entry(2, 11, 13));
+        assertThat(index.isCurrent(1L, 5L)).isTrue();
+        assertThat(index.overlapping(1L, 11, 12)).hasSize(2);
+
+        index.remove(1L, 6L, List.of(entry(1, 10, 12)));
+        assertThat(index.overlapping(1L, 11, 12)).extracting(WaitlistIndex.Entry::id).containsExactly(2L);
+
+        // A change made on another instance in between: the room must be reloaded
+        index.add(1L, 8L, entry(3, 11, 12));
+        assertThat(index.isCurrent(1L, 8L)).isFalse();
+        assertThat(index.overlapping(1L, 11, 12)).isEmpty();
+    }
+}